@@ -0,0 +1,208 @@
+package Project2;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Paints the whole board of a NumberSlider in a single component, so large
+ * boards don't need one Swing component per cell. The cells are drawn into
+ * an offscreen image that is copied to the screen; a move only redraws the
+ * cells it touched in the image and repaints their rectangles.
+ *
+ * Tile colors are computed once per exponent whenever the goal changes.
+ * Numbers are drawn only when a cell is large enough to read them.
+ *
+ * The board comes from the snapshots of a GameWorker playing on its own
+ * thread; the component never reads a game itself. Like every Swing
+ * component it must only be used on the event dispatch thread.
+ */
+public class BoardComponent extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final Color EMPTY_COLOR = Color.decode("#bbada0");
+    private static final Color GRID_COLOR = Color.decode("#8f7a66");
+    private static final int MAX_CELL = 100;
+    private static final int MIN_CELL = 4;
+    private static final int PREFERRED_BOARD = 800;
+    private static final int MIN_FONT = 8;
+
+    private int rows;
+    private int cols;
+    private int[] cells = new int[0];
+    private final Color[] palette = new Color[33];
+    private final Font[] fonts = new Font[12];
+    private BufferedImage image;
+    private int cellSize;
+
+    public BoardComponent() {
+        setOpaque(true);
+        setDoubleBuffered(true);
+    }
+
+    /**
+     * Recompute the tile colors for a new winning value and redraw
+     * @param goal the winning value
+     */
+    public void setGoal(int goal) {
+        palette[0] = EMPTY_COLOR;
+        for (int code = 1; code < palette.length; code++) {
+            double value = Math.pow(2, code - 1);
+            double green = 255 - (255.0 / (goal - 1) * value);
+            palette[code] = new Color(255, (int) Math.max(0, Math.min(255, green)), 0);
+        }
+        redrawAll();
+    }
+
+    /**
+     * Redraw every cell of the board shown
+     */
+    private void redrawAll() {
+        if (image != null) {
+            Graphics2D g = image.createGraphics();
+            try {
+                for (int k = 0; k < rows; k++) {
+                    for (int m = 0; m < cols; m++) {
+                        drawCell(g, k, m);
+                    }
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+        repaint();
+    }
+
+    /**
+     * Show a snapshot published by a GameWorker. Only the cells that differ
+     * from the board shown so far are redrawn, so snapshots may skip any
+     * number of moves; a snapshot of another size replaces the board.
+     * @param snapshot the board to show
+     */
+    public void show(BoardSnapshot snapshot) {
+        if (snapshot.getHeight() != rows || snapshot.getWidth() != cols) {
+            rows = snapshot.getHeight();
+            cols = snapshot.getWidth();
+            cells = new int[rows * cols];
+            image = null;
+            snapshot.copyValues(cells);
+            revalidate();
+            repaint();
+            return;
+        }
+        if (image == null) {
+            snapshot.copyValues(cells);
+            repaint();
+            return;
+        }
+        Graphics2D g = image.createGraphics();
+        try {
+            for (int k = 0; k < rows; k++) {
+                for (int m = 0; m < cols; m++) {
+                    int value = snapshot.getValue(k, m);
+                    if (cells[k * cols + m] != value) {
+                        cells[k * cols + m] = value;
+                        refreshCell(g, k, m);
+                    }
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet() || rows == 0) {
+            return super.getPreferredSize();
+        }
+        int cell = Math.max(MIN_CELL, Math.min(MAX_CELL, PREFERRED_BOARD / Math.max(rows, cols)));
+        return new Dimension(cell * cols, cell * rows);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground() != null ? getBackground() : EMPTY_COLOR);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (rows == 0) {
+            return;
+        }
+        int size = Math.max(1, Math.min(getWidth() / cols, getHeight() / rows));
+        if (image == null || size != cellSize) {
+            rebuildImage(size);
+        }
+        // only the clipped part of the image reaches the screen
+        g.drawImage(image, 0, 0, null);
+    }
+
+    private void rebuildImage(int size) {
+        cellSize = size;
+        Arrays.fill(fonts, null);
+        image = new BufferedImage(cols * size, rows * size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            for (int k = 0; k < rows; k++) {
+                for (int m = 0; m < cols; m++) {
+                    drawCell(g, k, m);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void refreshCell(Graphics2D g, int row, int col) {
+        drawCell(g, row, col);
+        repaint(col * cellSize, row * cellSize, cellSize, cellSize);
+    }
+
+    private void drawCell(Graphics2D g, int row, int col) {
+        int value = cells[row * cols + col];
+        int x = col * cellSize;
+        int y = row * cellSize;
+        int code = value == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(value);
+        g.setColor(palette[code]);
+        g.fillRect(x, y, cellSize, cellSize);
+        if (cellSize >= 2 * MIN_CELL) {
+            g.setColor(GRID_COLOR);
+            g.drawRect(x, y, cellSize - 1, cellSize - 1);
+        }
+        if (value == 0) {
+            return;
+        }
+        String text = Integer.toString(value);
+        Font font = fontFor(text.length());
+        if (font == null) {
+            return;
+        }
+        g.setFont(font);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        FontMetrics metrics = g.getFontMetrics();
+        g.setColor(Color.BLACK);
+        g.drawString(text, x + (cellSize - metrics.stringWidth(text)) / 2,
+                y + (cellSize - metrics.getHeight()) / 2 + metrics.getAscent());
+    }
+
+    /**
+     * @return the font fitting a number of that many digits in a cell, or
+     *  null when it would be too small to read
+     */
+    private Font fontFor(int digits) {
+        if (digits >= fonts.length) {
+            return null;
+        }
+        if (fonts[digits] == null) {
+            // a digit of the bold serif font is about 0.6 of its size wide
+            int size = (int) Math.min(cellSize * 0.4, cellSize * 0.85 / (0.6 * digits));
+            if (size < MIN_FONT) {
+                return null;
+            }
+            fonts[digits] = new Font(Font.SERIF, Font.BOLD, size);
+        }
+        return fonts[digits];
+    }
+}
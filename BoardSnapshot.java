@@ -0,0 +1,99 @@
+package Project2;
+
+/**
+ * An immutable copy of a game at one point in time. A GameWorker publishes
+ * one after its queue drains, so the event dispatch thread can paint and
+ * show the stats without touching the engine while it plays.
+ */
+public final class BoardSnapshot {
+    private final int height;
+    private final int width;
+    private final int[] values;
+    private final int moveCount;
+    private final int highest;
+    private final GameStatus status;
+    private final boolean undoRefused;
+
+    private BoardSnapshot(int height, int width, int[] values, int moveCount, GameStatus status,
+                          boolean undoRefused) {
+        this.height = height;
+        this.width = width;
+        this.values = values;
+        this.moveCount = moveCount;
+        this.status = status;
+        this.undoRefused = undoRefused;
+        int max = 0;
+        for (int v : values) {
+            max = Math.max(max, v);
+        }
+        highest = max;
+    }
+
+    /**
+     * Copy the state of a game. Must be called by the thread that plays
+     * it.
+     *
+     * @param game the game to copy
+     * @param undoRefused true when the last undo found nothing to take
+     *                    back
+     * @return the copy
+     */
+    public static BoardSnapshot of(NumberSlider game, boolean undoRefused) {
+        int[] values = new int[game.getHeight() * game.getWidth()];
+        game.copyValues(values);
+        return new BoardSnapshot(game.getHeight(), game.getWidth(), values, game.getMoveCount(),
+                game.getStatus(), undoRefused);
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the value of a cell, zero when it is empty
+     * @throws IndexOutOfBoundsException when the cell is outside the board
+     */
+    public int getValue(int row, int column) {
+        if (row < 0 || row >= height || column < 0 || column >= width) {
+            throw new IndexOutOfBoundsException("Cell (" + row + ", " + column + ")");
+        }
+        return values[row * width + column];
+    }
+
+    /**
+     * Copy every cell row by row into the buffer, like
+     * NumberSlider.copyValues(int[])
+     * @param buffer an array of at least getHeight() * getWidth() values
+     * @throws IllegalArgumentException when the buffer is too short
+     */
+    public void copyValues(int[] buffer) {
+        if (buffer.length < values.length) {
+            throw new IllegalArgumentException("Buffer holds " + buffer.length + " of " + values.length + " cells");
+        }
+        System.arraycopy(values, 0, buffer, 0, values.length);
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getHighest() {
+        return highest;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true when the undo played just before this snapshot found
+     *  nothing to take back
+     */
+    public boolean isUndoRefused() {
+        return undoRefused;
+    }
+}
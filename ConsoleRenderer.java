@@ -0,0 +1,159 @@
+package Project2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Draws the board of a NumberSlider as text, one frame per call. A frame
+ * is formatted into a reused buffer and handed to the writer in a single
+ * write, so large boards and slow terminals don't pay for one print per
+ * cell.
+ *
+ * In ANSI mode the first frame clears the screen and draws the board at
+ * the top. Later frames only move the cursor to the cells that changed
+ * since the previous frame and rewrite them, then leave the cursor on the
+ * line below the board with the rest of the screen cleared. Everything is
+ * redrawn when the board size or the column width changes.
+ */
+public class ConsoleRenderer {
+    private static final String ESC = "\033[";
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final Writer out;
+    private final boolean ansi;
+    private final int minWidth;
+    private final StringBuilder frame = new StringBuilder();
+    private char[] chars = new char[0];
+    private int[] cells = new int[0];
+    private int[] shown = new int[0];
+    private int rows;
+    private int cols;
+    private int width;
+    private boolean drawn;
+
+    /**
+     * @param out where the frames are written, flushed after every frame
+     * @param ansi true to redraw only the changed cells with ANSI cursor
+     *             moves
+     * @param minWidth the smallest number of characters per cell, one of
+     *                 them a separating blank. The width grows with the
+     *                 highest tile.
+     */
+    public ConsoleRenderer(Writer out, boolean ansi, int minWidth) {
+        if (minWidth < 2) {
+            throw new IllegalArgumentException("Cells need at least 2 characters");
+        }
+        this.out = out;
+        this.ansi = ansi;
+        this.minWidth = minWidth;
+    }
+
+    /**
+     * Draw the board of the game
+     * @param game the game to draw
+     * @throws UncheckedIOException when the writer fails
+     */
+    public void render(NumberSlider game) {
+        int height = game.getHeight();
+        int w = game.getWidth();
+        boolean full = !ansi || !drawn || height != rows || w != cols;
+        if (cells.length != height * w) {
+            cells = new int[height * w];
+            shown = new int[height * w];
+        }
+        rows = height;
+        cols = w;
+        game.copyValues(cells);
+        int highest = 0;
+        for (int value : cells) {
+            highest = Math.max(highest, value);
+        }
+        int needed = Math.max(minWidth, digits(highest) + 1);
+        if (needed != width) {
+            width = needed;
+            full = true;
+        }
+        frame.setLength(0);
+        if (full) {
+            if (ansi) {
+                frame.append(ESC).append("H").append(ESC).append("2J");
+            }
+            for (int k = 0; k < rows; k++) {
+                for (int m = 0; m < cols; m++) {
+                    appendCell(cells[k * cols + m]);
+                }
+                frame.append(NEWLINE);
+            }
+        } else {
+            for (int k = 0; k < rows; k++) {
+                for (int m = 0; m < cols; m++) {
+                    int value = cells[k * cols + m];
+                    if (value != shown[k * cols + m]) {
+                        moveTo(k, m * width);
+                        appendCell(value);
+                    }
+                }
+            }
+            moveTo(rows, 0);
+            frame.append(ESC).append("J");
+        }
+        System.arraycopy(cells, 0, shown, 0, cells.length);
+        drawn = true;
+        write();
+    }
+
+    /**
+     * Forget the previous frame, so the next one is drawn in full. Use it
+     * when something else has written over the board.
+     */
+    public void invalidate() {
+        drawn = false;
+    }
+
+    private void appendCell(int value) {
+        if (value == 0) {
+            pad(width - 1);
+            frame.append('.');
+        } else {
+            pad(width - digits(value));
+            frame.append(value);
+        }
+    }
+
+    private void pad(int count) {
+        for (int k = 0; k < count; k++) {
+            frame.append(' ');
+        }
+    }
+
+    /**
+     * Move the cursor to a zero-based row and column of the screen
+     */
+    private void moveTo(int row, int column) {
+        frame.append(ESC).append(row + 1).append(';').append(column + 1).append('H');
+    }
+
+    private static int digits(int value) {
+        int n = 1;
+        while (value >= 10) {
+            value /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    private void write() {
+        int length = frame.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        frame.getChars(0, length, chars, 0);
+        try {
+            out.write(chars, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
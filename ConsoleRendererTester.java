@@ -0,0 +1,50 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class ConsoleRendererTester {
+    private static final String NL = System.lineSeparator();
+
+    private static NumberGameArrayList game(int[][] values) {
+        NumberGameArrayList game = new NumberGameArrayList(3);
+        game.resizeBoard(values.length, values[0].length, 1024);
+        game.setValues(values);
+        return game;
+    }
+
+    @Test
+    public void plainFrameShallMatchPrintfLayout()
+    {
+        StringWriter out = new StringWriter();
+        ConsoleRenderer renderer = new ConsoleRenderer(out, false, 4);
+        renderer.render(game(new int[][] {{2, 0, 0}, {0, 64, 4}}));
+        assertEquals(String.format("%4d%4s%4s" + NL + "%4s%4d%4d" + NL, 2, ".", ".", ".", 64, 4),
+                out.toString());
+        // a tile wider than the cells widens every column
+        out.getBuffer().setLength(0);
+        renderer.render(game(new int[][] {{2, 0, 0}, {0, 16384, 4}}));
+        assertEquals("     2     .     ." + NL + "     . 16384     4" + NL, out.toString());
+    }
+
+    @Test
+    public void ansiFrameShallRedrawOnlyChangedCells()
+    {
+        StringWriter out = new StringWriter();
+        ConsoleRenderer renderer = new ConsoleRenderer(out, true, 4);
+        NumberGameArrayList game = game(new int[][] {{2, 0, 0}, {0, 64, 4}});
+        renderer.render(game);
+        assertTrue(out.toString().startsWith("\033[H\033[2J"));
+        out.getBuffer().setLength(0);
+        game.setValues(new int[][] {{2, 0, 0}, {0, 64, 8}});
+        renderer.render(game);
+        assertEquals("\033[2;9H   8\033[3;1H\033[J", out.toString());
+        out.getBuffer().setLength(0);
+        renderer.invalidate();
+        renderer.render(game);
+        assertTrue(out.toString().startsWith("\033[H\033[2J"));
+    }
+}
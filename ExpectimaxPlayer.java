@@ -0,0 +1,368 @@
+package Project2;
+
+import java.util.SplittableRandom;
+
+/**
+ * An automated player for the 4x4 board that searches the game tree with
+ * depth-limited expectimax. Max nodes try every direction, chance nodes
+ * average over every empty cell receiving a 2 or a 4, each with the same
+ * probability as placeRandomValue() gives them. Leaves are scored by a
+ * heuristic that rewards empty cells, possible merges and monotonic lines.
+ *
+ * The search runs on the packed boards of NumberGameBitBoard. Chance node
+ * values are kept in a direct-mapped transposition table of fixed size
+ * keyed by the packed board, so repeated positions are scored once and the
+ * memory used never grows. Each move deepens the search one level at a
+ * time until the maximum depth or the time budget is reached, and plays
+ * the best direction of the deepest completed level.
+ *
+ * A player is not thread safe, use one player per thread.
+ */
+public class ExpectimaxPlayer implements MovePolicy {
+    public static final int DEFAULT_DEPTH = 3;
+    public static final int DEFAULT_TABLE_BITS = 20;
+
+    /* placeRandomValue() places a 2 or a 4 with the same probability */
+    private static final float TWO_PROBABILITY = 0.5f;
+    /* branches less likely than this are scored by the heuristic */
+    private static final float MIN_PROBABILITY = 0.0001f;
+    private static final int DEADLINE_CHECK_MASK = 0xFFF;
+    private static final long EMPTY_MASK = 0x1111111111111111L;
+
+    private static final float LOST_PENALTY = 200000f;
+    private static final float MONOTONICITY_POWER = 4f;
+    private static final float MONOTONICITY_WEIGHT = 47f;
+    private static final float SUM_POWER = 3.5f;
+    private static final float SUM_WEIGHT = 11f;
+    private static final float MERGES_WEIGHT = 700f;
+    private static final float EMPTY_WEIGHT = 270f;
+
+    private static final SlideDirection[] DIRECTIONS = SlideDirection.values();
+    private static final float[] ROW_HEURISTIC = buildRowHeuristic();
+
+    private final int maxDepth;
+    private final long budgetNanos;
+    private final long[] tableKeys;
+    private final float[] tableValues;
+    private final byte[] tableDepths;
+    private final int tableShift;
+
+    private long deadline;
+    private boolean timedOut;
+    private boolean canTimeOut;
+    private long nodes;
+    private long tableHits;
+    private long moves;
+    private long searchNanos;
+    private int lastDepth;
+
+    /**
+     * Create a player searching DEFAULT_DEPTH moves ahead without a time
+     * limit
+     */
+    public ExpectimaxPlayer() {
+        this(DEFAULT_DEPTH, 0, DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * @param maxDepth the number of moves to look ahead, at least one
+     * @param budgetNanos the time allowed for choosing one move, zero for
+     *                    no limit. The first level is always completed.
+     * @param tableBits the transposition table holds 2^tableBits entries of
+     *                  13 bytes each
+     * @throws IllegalArgumentException when an argument is out of range
+     */
+    public ExpectimaxPlayer(int maxDepth, long budgetNanos, int tableBits) {
+        if (maxDepth < 1 || maxDepth > Byte.MAX_VALUE || budgetNanos < 0 || tableBits < 1 || tableBits > 28) {
+            throw new IllegalArgumentException();
+        }
+        this.maxDepth = maxDepth;
+        this.budgetNanos = budgetNanos;
+        tableKeys = new long[1 << tableBits];
+        tableValues = new float[1 << tableBits];
+        tableDepths = new byte[1 << tableBits];
+        tableShift = 64 - tableBits;
+    }
+
+    /**
+     * Slide the game in the direction chosen by the search.
+     *
+     * @param game a game on a 4x4 board
+     * @return false when no direction changes the board
+     * @throws IllegalArgumentException when the board is not 4x4 or a tile
+     *  can not be encoded
+     */
+    @Override
+    public boolean playMove(PlayableGame game) {
+        SlideDirection dir = bestMove(game);
+        return dir != null && game.slide(dir);
+    }
+
+    /**
+     * @param game a game on a 4x4 board
+     * @return the best direction, or null when no direction changes the
+     *  board
+     * @throws IllegalArgumentException when the board is not 4x4 or a tile
+     *  can not be encoded
+     */
+    public SlideDirection bestMove(PlayableGame game) {
+        return bestMove(NumberGameBitBoard.pack(game));
+    }
+
+    /**
+     * @param board a packed board as used by NumberGameBitBoard
+     * @return the best direction, or null when no direction changes the
+     *  board
+     */
+    public SlideDirection bestMove(long board) {
+        long start = System.nanoTime();
+        deadline = budgetNanos == 0 ? Long.MAX_VALUE : start + budgetNanos;
+        timedOut = false;
+        canTimeOut = false;
+        SlideDirection best = null;
+        lastDepth = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            SlideDirection found = null;
+            float bestValue = -Float.MAX_VALUE;
+            for (SlideDirection dir : DIRECTIONS) {
+                long moved = NumberGameBitBoard.move(board, dir);
+                if (moved == board) {
+                    continue;
+                }
+                float value = chanceNode(moved, depth - 1, 1f);
+                if (timedOut) {
+                    break;
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    found = dir;
+                }
+            }
+            if (timedOut || found == null) {
+                break;
+            }
+            best = found;
+            lastDepth = depth;
+            // keep the completed level when the next one runs out of time
+            canTimeOut = true;
+        }
+        searchNanos += System.nanoTime() - start;
+        if (best != null) {
+            moves++;
+        }
+        return best;
+    }
+
+    /**
+     * @return the number of moves chosen so far
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return the number of max nodes searched so far
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the number of chance nodes read from the transposition table
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * @return the total time spent choosing moves, in nanoseconds
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * @return the depth of the deepest completed level of the last move
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    public double getMovesPerSecond() {
+        return searchNanos == 0 ? 0 : moves * 1e9 / searchNanos;
+    }
+
+    public double getNodesPerSecond() {
+        return searchNanos == 0 ? 0 : nodes * 1e9 / searchNanos;
+    }
+
+    /**
+     * Zero the counters, the transposition table is kept
+     */
+    public void resetStats() {
+        moves = 0;
+        nodes = 0;
+        tableHits = 0;
+        searchNanos = 0;
+    }
+
+    /**
+     * @param board a packed board
+     * @return the heuristic score of the board, higher is better
+     */
+    public static float evaluate(long board) {
+        long t = NumberGameBitBoard.transpose(board);
+        float score = 0;
+        for (int row = 0; row < 4; row++) {
+            score += ROW_HEURISTIC[(int) (board >>> (16 * row)) & 0xFFFF];
+            score += ROW_HEURISTIC[(int) (t >>> (16 * row)) & 0xFFFF];
+        }
+        return score;
+    }
+
+    private float maxNode(long board, int depth, float probability) {
+        nodes++;
+        if (canTimeOut && (nodes & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+            timedOut = true;
+        }
+        if (timedOut) {
+            return 0;
+        }
+        float best = 0;
+        for (SlideDirection dir : DIRECTIONS) {
+            long moved = NumberGameBitBoard.move(board, dir);
+            if (moved != board) {
+                best = Math.max(best, chanceNode(moved, depth, probability));
+            }
+        }
+        return best;
+    }
+
+    private float chanceNode(long board, int depth, float probability) {
+        if (depth == 0 || probability < MIN_PROBABILITY) {
+            return evaluate(board);
+        }
+        // a board left by a move always holds a tile, so key 0 marks a free slot
+        int slot = (int) ((board * 0x9E3779B97F4A7C15L) >>> tableShift);
+        if (tableKeys[slot] == board && tableDepths[slot] >= depth) {
+            tableHits++;
+            return tableValues[slot];
+        }
+        long x = board | (board >>> 1);
+        x |= x >>> 2;
+        long empty = ~x & EMPTY_MASK;
+        int count = Long.bitCount(empty);
+        float cell = probability / count;
+        float sum = 0;
+        while (empty != 0) {
+            long bit = empty & -empty;
+            empty ^= bit;
+            sum += TWO_PROBABILITY * maxNode(board | bit * 2, depth - 1, cell * TWO_PROBABILITY);
+            sum += (1 - TWO_PROBABILITY) * maxNode(board | bit * 3, depth - 1, cell * (1 - TWO_PROBABILITY));
+        }
+        float value = sum / count;
+        if (!timedOut) {
+            tableKeys[slot] = board;
+            tableValues[slot] = value;
+            tableDepths[slot] = (byte) depth;
+        }
+        return value;
+    }
+
+    private static float[] buildRowHeuristic() {
+        float[] table = new float[1 << 16];
+        int[] line = new int[4];
+        for (int row = 0; row < table.length; row++) {
+            for (int k = 0; k < 4; k++) {
+                line[k] = (row >>> (4 * k)) & 0xF;
+            }
+            float sum = 0;
+            int empty = 0;
+            int merges = 0;
+            int prev = 0;
+            int counter = 0;
+            for (int k = 0; k < 4; k++) {
+                int code = line[k];
+                sum += (float) Math.pow(code, SUM_POWER);
+                if (code == 0) {
+                    empty++;
+                    continue;
+                }
+                if (prev == code) {
+                    counter++;
+                } else if (counter > 0) {
+                    merges += 1 + counter;
+                    counter = 0;
+                }
+                prev = code;
+            }
+            if (counter > 0) {
+                merges += 1 + counter;
+            }
+            float decreasing = 0;
+            float increasing = 0;
+            for (int k = 1; k < 4; k++) {
+                float a = (float) Math.pow(line[k - 1], MONOTONICITY_POWER);
+                float b = (float) Math.pow(line[k], MONOTONICITY_POWER);
+                if (line[k - 1] > line[k]) {
+                    decreasing += a - b;
+                } else {
+                    increasing += b - a;
+                }
+            }
+            table[row] = LOST_PENALTY + EMPTY_WEIGHT * empty + MERGES_WEIGHT * merges
+                    - MONOTONICITY_WEIGHT * Math.min(decreasing, increasing) - SUM_WEIGHT * sum;
+        }
+        return table;
+    }
+
+    /**
+     * Play one seeded game on the bitboard engine and print the search
+     * rate, for tuning the depth and the budget.
+     *
+     * Usage: ExpectimaxPlayer [--depth D] [--budget MILLIS] [--table BITS]
+     *        [--goal G] [--seed S]
+     */
+    public static void main(String[] arg) {
+        int depth = DEFAULT_DEPTH;
+        long budget = 0;
+        int bits = DEFAULT_TABLE_BITS;
+        int goal = 2048;
+        long seed = System.nanoTime();
+        for (int k = 0; k + 1 < arg.length; k += 2) {
+            switch (arg[k]) {
+                case "--depth":
+                    depth = Integer.parseInt(arg[k + 1]);
+                    break;
+                case "--budget":
+                    budget = Long.parseLong(arg[k + 1]) * 1000000L;
+                    break;
+                case "--table":
+                    bits = Integer.parseInt(arg[k + 1]);
+                    break;
+                case "--goal":
+                    goal = Integer.parseInt(arg[k + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(arg[k + 1]);
+                    break;
+                default:
+                    System.err.println("Usage: ExpectimaxPlayer [--depth D] [--budget MILLIS]"
+                            + " [--table BITS] [--goal G] [--seed S]");
+                    System.exit(1);
+            }
+        }
+        ExpectimaxPlayer player = new ExpectimaxPlayer(depth, budget, bits);
+        NumberGameBitBoard game = new NumberGameBitBoard(new SplittableRandom(seed));
+        game.setUndoDepth(0);
+        game.resizeBoard(4, 4, goal);
+        game.reset();
+        while (game.getStatus() == GameStatus.IN_PROGRESS && player.playMove(game)) {
+            // keep playing
+        }
+        System.out.printf("%s with highest tile %d after %d moves, seed %d%n",
+                game.getStatus(), game.getHighest(), player.getMoves(), seed);
+        System.out.printf("%.1f moves/s, %.0f nodes/s, %d table hits%n",
+                player.getMovesPerSecond(), player.getNodesPerSecond(), player.getTableHits());
+    }
+}
@@ -0,0 +1,105 @@
+package Project2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ExpectimaxPlayerTester {
+    private ExpectimaxPlayer player;
+    private NumberGameBitBoard gameLogic;
+
+    @Before
+    public void setUp() {
+        player = new ExpectimaxPlayer(2, 0, 16);
+        gameLogic = new NumberGameBitBoard(12345L);
+        gameLogic.resizeBoard(4, 4, 2048);
+    }
+
+    @Test
+    public void noMoveShallBeFoundOnLostBoard()
+    {
+        int[][] mat = {
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 2}
+        };
+        gameLogic.setValues(mat);
+        assertNull(player.bestMove(gameLogic));
+        assertFalse(player.playMove(gameLogic));
+        assertEquals(0, player.getMoves());
+    }
+
+    @Test
+    public void onlyLegalMoveShallBeChosen()
+    {
+        /* nothing moves left, up or down */
+        int[][] mat = {
+                {2, 4, 8, 0},
+                {4, 8, 2, 0},
+                {2, 4, 8, 0},
+                {4, 8, 2, 0}
+        };
+        gameLogic.setValues(mat);
+        assertEquals(SlideDirection.RIGHT, player.bestMove(gameLogic));
+    }
+
+    @Test
+    public void arrayListAndBitBoardShallGetSameMove()
+    {
+        NumberGameArrayList other = new NumberGameArrayList(7L);
+        other.resizeBoard(4, 4, 2048);
+        other.reset();
+        for (int k = 0; k < 50 && other.getStatus() == GameStatus.IN_PROGRESS; k++) {
+            int[][] mat = new int[4][4];
+            for (Cell c : other.getNonEmptyTiles()) {
+                mat[c.getRow()][c.getColumn()] = c.getValue();
+            }
+            gameLogic.setValues(mat);
+            SlideDirection dir = player.bestMove(other);
+            assertEquals(dir, player.bestMove(gameLogic));
+            assertTrue(other.slide(dir));
+        }
+    }
+
+    @Test
+    public void playerShallRefuseLargerBoards()
+    {
+        NumberGameArrayList other = new NumberGameArrayList();
+        other.resizeBoard(5, 5, 2048);
+        int[][] mat = new int[5][5];
+        mat[4][4] = 2;
+        other.setValues(mat);
+        try {
+            player.bestMove(other);
+            fail("a tile outside the 4x4 board should be refused");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void playerShallReachTile512()
+    {
+        gameLogic.setUndoDepth(0);
+        gameLogic.reset();
+        while (gameLogic.getStatus() == GameStatus.IN_PROGRESS && gameLogic.getHighest() < 512) {
+            assertTrue(player.playMove(gameLogic));
+        }
+        assertTrue(gameLogic.getHighest() >= 512);
+        assertTrue(player.getNodes() > 0);
+        assertTrue(player.getNodesPerSecond() > 0);
+        assertEquals(2, player.getLastDepth());
+    }
+
+    @Test
+    public void budgetShallStopDeepSearch()
+    {
+        ExpectimaxPlayer limited = new ExpectimaxPlayer(20, 5000000L, 16);
+        gameLogic.reset();
+        long start = System.nanoTime();
+        assertNotNull(limited.bestMove(gameLogic));
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertTrue(limited.getLastDepth() >= 1 && limited.getLastDepth() < 20);
+    }
+}
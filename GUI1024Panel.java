@@ -1,7 +1,6 @@
 package Project2;
 
 import javax.swing.*;
-import javax.swing.border.BevelBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -11,8 +10,11 @@ import java.util.ArrayList;
 
 public class GUI1024Panel extends JPanel {
     private JLabel numSession,numMove,numHighestAllSession,numHighestCurrent,numHighestPrevious;
-    private JLabel[][] gameBoardUI;
+    private BoardComponent boardView;
     private NumberGameArrayList gameLogic;
+    private GameWorker worker;
+    private BoardSnapshot lastSnapshot;
+    private boolean gameOverShown;
     private int nRows, nCols,goal;
     private JButton upButton, downButton, leftButton, rightButton,undoButton,quitButton;
     private JPanel playPanel, gamePanel, scorePanel, statPanel,buttonPanel;
@@ -168,35 +170,47 @@ public class GUI1024Panel extends JPanel {
 
 
     }
-    private void updateBoard() {
-        for (JLabel[] row : gameBoardUI)
-            for (JLabel s : row) {
-                s.setText("");
-            }
-
-        ArrayList<Cell> out = gameLogic.getNonEmptyTiles();
-        if (out == null) {
-            JOptionPane.showMessageDialog(null, "Incomplete implementation getNonEmptyTiles()");
+    /**
+     * Show a board published by the worker, then the dialogs of the
+     * events it carries. Runs on the event dispatch thread.
+     */
+    private void showSnapshot(BoardSnapshot snapshot) {
+        lastSnapshot = snapshot;
+        boardView.show(snapshot);
+        updateStats();
+        if (snapshot.isUndoRefused()) {
+            JOptionPane.showMessageDialog(null, "Can't undo beyond the first move");
+        }
+        if (snapshot.getStatus().equals(GameStatus.IN_PROGRESS)) {
+            gameOverShown = false;
+            return;
+        }
+        // the worker keeps publishing the finished board until the reset
+        // is played, so ask only once
+        if (gameOverShown) {
             return;
         }
-        for (Cell c : out) {
-            JLabel z = gameBoardUI[c.getRow()][c.getColumn()];
-            z.setText(String.valueOf(Math.abs(c.getValue())));
-            z.setForeground(c.getValue() > 0 ? Color.BLACK : Color.RED);
-            z.setOpaque(true);
-			double green =255-(255.0/(gameLogic.getWinningValue()-1)*c.getValue());
-			if(green<0){green=0;}
-			z.setBackground(new Color(255,(int)green,0));
+        gameOverShown = true;
+        if (snapshot.getStatus().equals(GameStatus.USER_WON)) {
+            JOptionPane.showMessageDialog(null, "You won");
+        } else {
+            JOptionPane.showMessageDialog(null, "You Lose");
         }
-        ArrayList<Cell> empty = gameLogic.getEmptyCell();
-		for(Cell c : empty){
-			gameBoardUI[c.getRow()][c.getColumn()].setOpaque(true);
-			gameBoardUI[c.getRow()][c.getColumn()].setBackground(Color.decode("#bbada0"));
-		}
-        numMove.setText(String.valueOf(gameLogic.getUndoSize()));
+        int resp = JOptionPane.showConfirmDialog(null, "Do you want to play again?", "TentOnly Over!",
+                JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (resp == JOptionPane.YES_OPTION) {
+            previousHighest.add(snapshot.getHighest());
+            worker.submit(GameWorker.Command.RESET);
+        } else {
+            System.exit(0);
+        }
+    }
+
+    private void updateStats() {
+        numMove.setText(String.valueOf(lastSnapshot.getMoveCount()));
         if(previousHighest.isEmpty()){
-        numHighestAllSession.setText(String.valueOf(gameLogic.getHighest()));}
-        numHighestCurrent.setText(String.valueOf(gameLogic.getHighest()));
+        numHighestAllSession.setText(String.valueOf(lastSnapshot.getHighest()));}
+        numHighestCurrent.setText(String.valueOf(lastSnapshot.getHighest()));
         if(previousHighest.isEmpty()){
             numHighestPrevious.setText("0");
         }else{
@@ -212,57 +226,22 @@ public class GUI1024Panel extends JPanel {
 
         @Override
         public void keyPressed(KeyEvent e) {
-
-            boolean moved = false;
             switch (e.getKeyCode()) {
                 case KeyEvent.VK_UP:
-                    moved = gameLogic.slide(SlideDirection.UP);
+                    worker.submit(GameWorker.Command.UP);
                     break;
                 case KeyEvent.VK_LEFT:
-                    moved = gameLogic.slide(SlideDirection.LEFT);
+                    worker.submit(GameWorker.Command.LEFT);
                     break;
                 case KeyEvent.VK_DOWN:
-                    moved = gameLogic.slide(SlideDirection.DOWN);
+                    worker.submit(GameWorker.Command.DOWN);
                     break;
                 case KeyEvent.VK_RIGHT:
-                    moved = gameLogic.slide(SlideDirection.RIGHT);
+                    worker.submit(GameWorker.Command.RIGHT);
                     break;
                 case KeyEvent.VK_U:
-                    try {
-                        System.out.println("Attempt to undo");
-                        gameLogic.undo();
-                        moved = true;
-                    } catch (IllegalStateException exp) {
-                        JOptionPane.showMessageDialog(null, "Can't undo beyond the first move");
-                        moved = false;
-                    }
-            }
-            if (moved) {
-                updateBoard();
-                if (gameLogic.getStatus().equals(GameStatus.USER_WON)){
-                    JOptionPane.showMessageDialog(null, "You won"); 
-                    int resp = JOptionPane.showConfirmDialog(null, "Do you want to play again?", "TentOnly Over!",
-                    JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
-                     if (resp == JOptionPane.YES_OPTION) {
-                        previousHighest.add(gameLogic.getHighest());
-                     gameLogic.reset();
-                     updateBoard();
-                    } else {
-                     System.exit(0);
-                    }  
-                }
-               if (gameLogic.getStatus().equals(GameStatus.USER_LOST)) {
-                    JOptionPane.showMessageDialog(null, "You Lose");
-                    int resp = JOptionPane.showConfirmDialog(null, "Do you want to play again?", "TentOnly Over!",
-                            JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
-                    if (resp == JOptionPane.YES_OPTION) {
-                        previousHighest.add(gameLogic.getHighest());
-                        gameLogic.reset();
-                        updateBoard();
-                    } else {
-                        System.exit(0);
-                    }
-                }
+                    System.out.println("Attempt to undo");
+                    worker.submit(GameWorker.Command.UNDO);
             }
         }
 
@@ -271,7 +250,6 @@ public class GUI1024Panel extends JPanel {
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            boolean moved = false;
             if(e.getSource()==quitItem||e.getSource()==quitButton){
 				int resp = JOptionPane.showConfirmDialog(null, "Would You Like to Exit?",
 						"Warning",
@@ -308,8 +286,8 @@ public class GUI1024Panel extends JPanel {
 							JOptionPane.showMessageDialog(null, "Enter positive integer for " +
 									"height and width");
 						} else {
-							int winning = gameLogic.getWinningValue();
-							previousHighest.add(gameLogic.getHighest());
+							int winning = goal;
+							previousHighest.add(lastSnapshot.getHighest());
 							playPanel.remove(gamePanel);
 							c = new GridBagConstraints();
 							c.gridx = 0;
@@ -335,8 +313,7 @@ public class GUI1024Panel extends JPanel {
 				int resp = JOptionPane.showConfirmDialog(null, "Do you want to reset board ?", "RESET BOARD!",
 						JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
 				if(resp==JOptionPane.YES_OPTION){
-					gameLogic.reset();
-					updateBoard();
+					worker.submit(GameWorker.Command.RESET);
 					JOptionPane.showMessageDialog(null,"Reset Board Game Complete");
 				}
 
@@ -358,7 +335,10 @@ public class GUI1024Panel extends JPanel {
                     try{
                     int winningTemp = Integer.parseInt(setValue.getText());
                     if(winningTemp>0&&((winningTemp &winningTemp-1) ==0)){
-                        gameLogic.setWinningValue(winningTemp);
+                        NumberGameArrayList target = gameLogic;
+                        worker.execute(() -> target.setWinningValue(winningTemp));
+                        goal = winningTemp;
+                        boardView.setGoal(winningTemp);
                         JOptionPane.showMessageDialog(null, "Set New Goal Complete \n New Goal is "+winningTemp);
                     }
                     else{
@@ -373,54 +353,20 @@ public class GUI1024Panel extends JPanel {
                 }
             }
             if(e.getSource()==upButton){
-                    moved = gameLogic.slide(SlideDirection.UP);
-            
+                worker.submit(GameWorker.Command.UP);
             }
             if(e.getSource()==downButton){
-                moved = gameLogic.slide(SlideDirection.DOWN);
+                worker.submit(GameWorker.Command.DOWN);
             }
             if(e.getSource()==leftButton){
-                moved = gameLogic.slide(SlideDirection.LEFT);
+                worker.submit(GameWorker.Command.LEFT);
             }
             if(e.getSource()==rightButton){
-                moved = gameLogic.slide(SlideDirection.RIGHT);
+                worker.submit(GameWorker.Command.RIGHT);
             }
             if(e.getSource()==undoButton){
-                try {
-                    System.out.println("Attempt to undo");
-                    gameLogic.undo();
-                    moved = true;
-                } catch (IllegalStateException exp) {
-                    JOptionPane.showMessageDialog(null, "Can't undo beyond the first move");
-                    moved = false;
-                }
-            }
-            if (moved) {
-                updateBoard();
-                if (gameLogic.getStatus().equals(GameStatus.USER_WON)){
-                    JOptionPane.showMessageDialog(null, "You won"); 
-                    int resp = JOptionPane.showConfirmDialog(null, "Do you want to play again?", "TentOnly Over!",
-                    JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
-                     if (resp == JOptionPane.YES_OPTION) {
-                        previousHighest.add(gameLogic.getHighest());
-                     gameLogic.reset();
-                     updateBoard();
-                    } else {
-                     System.exit(0);
-                    }  
-                }
-               if (gameLogic.getStatus().equals(GameStatus.USER_LOST)) {
-                    JOptionPane.showMessageDialog(null, "You Lose");
-                    int resp = JOptionPane.showConfirmDialog(null, "Do you want to play again?", "TentOnly Over!",
-                            JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
-                    if (resp == JOptionPane.YES_OPTION) {
-                        previousHighest.add(gameLogic.getHighest());
-                        gameLogic.reset();
-                        updateBoard();
-                    } else {
-                        System.exit(0);
-                    }
-                }
+                System.out.println("Attempt to undo");
+                worker.submit(GameWorker.Command.UNDO);
             }
             playPanel.requestFocus(true);
            
@@ -440,45 +386,31 @@ public class GUI1024Panel extends JPanel {
             this.goal=1024;
         }
        
+        // The previous game is left to its worker, which stops without
+        // delivering any more boards
+        if(worker != null){
+            worker.stop();
+        }
         gameLogic = new NumberGameArrayList();
         gameLogic.resizeBoard(nRows, nCols, this.goal);
+        gameLogic.reset();
 
         // Update the GUI
-        // Start with changing the panel size and creating a new
-        // gamePanel
-        setSize(new Dimension(100*(nCols)+100, 100*(nRows)+200));
-        gamePanel.setLayout(new GridLayout(nRows, nCols));
-        GridBagConstraints c = new GridBagConstraints();
-        c.fill = GridBagConstraints.HORIZONTAL;
-        c.gridx = 0;
-        c.gridy = 0;
-
-        // Initialize the game board GUI
-        gameBoardUI = new JLabel[nRows][nCols];
-
-        Font myTextFont = new Font(Font.SERIF, Font.BOLD, 40);
-        for (int k = 0; k < nRows; k++) {
-            for (int m = 0; m < nCols; m++) {
-                gameBoardUI[k][m] = new JLabel();
-                gameBoardUI[k][m].setFont(myTextFont);
-                gameBoardUI[k][m].setBorder(BorderFactory.createBevelBorder(BevelBorder.RAISED));
-                gameBoardUI[k][m].setPreferredSize(new Dimension(100, 100));
-                gameBoardUI[k][m].setMinimumSize(new Dimension(100, 100));
+        // The whole board is painted by a single component, sized so
+        // that large boards still fit on the screen
+        lastSnapshot = BoardSnapshot.of(gameLogic, false);
+        boardView = new BoardComponent();
+        boardView.setGoal(this.goal);
+        boardView.show(lastSnapshot);
+        gamePanel.setLayout(new BorderLayout());
+        gamePanel.add(boardView, BorderLayout.CENTER);
+        Dimension board = boardView.getPreferredSize();
+        setSize(new Dimension(board.width + 100, board.height + 200));
+        gameOverShown = false;
+        updateStats();
 
-                //						c.fill = GridBagConstraints.HORIZONTAL;
-                // Indicate which column
-                c.gridx = m;
-                // Indicate which row
-                c.gridy = k;
-                // Indicate number of columns to span
-                c.gridwidth = 1;
-                // Specify custom height
-                //						c.ipady = 40;
-                gamePanel.add(gameBoardUI[k][m]);
-            }
-        }
-
-        gameLogic.reset();
-        updateBoard();
+        // From here on the game is only played by its worker thread
+        worker = new GameWorker(gameLogic, this::showSnapshot);
+        worker.start();
     }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package Project2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a GameServer with many players at once. Every player opens its
+ * own connection and session, then slides in random directions and starts
+ * a new game whenever one ends, one request at a time, for a fixed time.
+ * The latency of every request is kept, and the report gives the
+ * throughput and the latency percentiles.
+ *
+ * Without --port a server is started in the same process; the players
+ * then share the machine with it.
+ *
+ * Usage: GameLoadGenerator [--port P] [--sessions N] [--seconds S]
+ *        [--size ROWSxCOLS]
+ */
+public class GameLoadGenerator {
+    private static final String[] DIRECTIONS = {"LEFT", "UP", "RIGHT", "DOWN"};
+
+    private final int port;
+    private final int rows;
+    private final int cols;
+    private volatile boolean running = true;
+
+    /**
+     * The latencies measured by one player, in microseconds
+     */
+    private static class Latencies {
+        private int[] micros = new int[1024];
+        private int count;
+        private boolean failed;
+
+        private void add(long nanos) {
+            if (count == micros.length) {
+                micros = Arrays.copyOf(micros, count * 2);
+            }
+            micros[count++] = (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+        }
+    }
+
+    private GameLoadGenerator(int port, int rows, int cols) {
+        this.port = port;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    private void play(Latencies latencies, long seed, CountDownLatch connected, CountDownLatch start) {
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean counted = false;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String id = request(in, out, "NEW " + rows + " " + cols + " 2048").substring(3);
+            connected.countDown();
+            counted = true;
+            start.await();
+            while (running) {
+                long begin = System.nanoTime();
+                String reply = request(in, out, "SLIDE " + id + " " + DIRECTIONS[random.nextInt(4)]);
+                latencies.add(System.nanoTime() - begin);
+                if (!reply.endsWith("IN_PROGRESS")) {
+                    begin = System.nanoTime();
+                    request(in, out, "CLOSE " + id);
+                    id = request(in, out, "NEW " + rows + " " + cols + " 2048").substring(3);
+                    latencies.add(System.nanoTime() - begin);
+                }
+            }
+            request(in, out, "CLOSE " + id);
+        } catch (IOException | InterruptedException e) {
+            latencies.failed = true;
+        } finally {
+            if (!counted) {
+                connected.countDown();
+            }
+        }
+    }
+
+    private static String request(BufferedReader in, BufferedWriter out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null || !reply.startsWith("OK")) {
+            throw new IOException("Request " + line + " failed: " + reply);
+        }
+        return reply;
+    }
+
+    public static void main(String[] arg) throws IOException, InterruptedException {
+        int port = 0;
+        int sessions = 1000;
+        int seconds = 10;
+        int rows = 4;
+        int cols = 4;
+        try {
+            if (arg.length % 2 != 0) {
+                throw new IllegalArgumentException("Missing value for " + arg[arg.length - 1]);
+            }
+            for (int k = 0; k < arg.length; k += 2) {
+                String value = arg[k + 1];
+                switch (arg[k]) {
+                    case "--port":
+                        port = Integer.parseInt(value);
+                        break;
+                    case "--sessions":
+                        sessions = Integer.parseInt(value);
+                        break;
+                    case "--seconds":
+                        seconds = Integer.parseInt(value);
+                        break;
+                    case "--size":
+                        String[] dims = value.split("x");
+                        rows = Integer.parseInt(dims[0]);
+                        cols = Integer.parseInt(dims[dims.length - 1]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg[k]);
+                }
+            }
+            if (sessions <= 0 || seconds <= 0) {
+                throw new IllegalArgumentException("sessions and seconds must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: GameLoadGenerator [--port P] [--sessions N] [--seconds S] [--size ROWSxCOLS]");
+            System.exit(1);
+        }
+        GameServer server = port == 0 ? new GameServer(0, "arraylist", new SessionRegistry()) : null;
+        GameLoadGenerator generator = new GameLoadGenerator(server != null ? server.getPort() : port, rows, cols);
+        Latencies[] players = new Latencies[sessions];
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = GameServer.newConnectionExecutor("GameLoadGenerator");
+        SplittableRandom seeds = new SplittableRandom(1);
+        for (int k = 0; k < sessions; k++) {
+            Latencies latencies = players[k] = new Latencies();
+            long seed = seeds.nextLong();
+            executor.execute(() -> generator.play(latencies, seed, connected, start));
+        }
+        connected.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        generator.running = false;
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+
+        int total = 0;
+        int failed = 0;
+        for (Latencies p : players) {
+            total += p.count;
+            failed += p.failed ? 1 : 0;
+        }
+        int[] all = new int[total];
+        int n = 0;
+        for (Latencies p : players) {
+            System.arraycopy(p.micros, 0, all, n, p.count);
+            n += p.count;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d sessions on %dx%d boards, %d failed, %.1f s%n", sessions, rows, cols, failed, elapsed);
+        System.out.printf("%d requests, %.0f requests/s%n", total, total / elapsed);
+        if (total > 0) {
+            System.out.printf("latency us: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n",
+                    all[(int) (total * 0.5)], all[(int) (total * 0.9)], all[(int) (total * 0.99)],
+                    all[(int) (total * 0.999)], all[total - 1]);
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+}
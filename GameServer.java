@@ -0,0 +1,347 @@
+package Project2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts games over a line-based TCP protocol on the loopback interface.
+ * Every request is one line and gets one reply line, starting with OK or
+ * ERR:
+ *
+ *   NEW ROWS COLS GOAL [SEED]  OK id
+ *   SLIDE id LEFT|UP|RIGHT|DOWN  OK MOVED|UNCHANGED status
+ *   UNDO id                    OK, or ERR when there is nothing to undo
+ *   STATUS id                  OK status moves
+ *   BOARD id                   OK rows cols and every cell, row by row
+ *   TILES id                   OK rows cols count, then row col value of
+ *                              every tile, row by row
+ *   CLOSE id                   OK
+ *   QUIT                       OK, then the connection is closed
+ *
+ * Sessions live in a SessionRegistry and outlive their connection until
+ * they are closed. Each connection is served by its own thread: a virtual
+ * thread when the runtime has them, otherwise a platform thread with a
+ * small stack. Replies are flushed once the client has no more requests
+ * waiting, so pipelined requests share a write.
+ *
+ * Boards are limited to MAX_CELLS cells, except with the sparse engine,
+ * which stores only the tiles and takes boards of any size it supports.
+ * BOARD refuses boards over MAX_CELLS; TILES costs in the tile count and
+ * serves any board.
+ *
+ * With --budget the games may hold that many megabytes of heap before
+ * the least recently played are moved off-heap by the SessionRegistry.
+ *
+ * Usage: GameServer [--port P] [--engine arraylist|bitboard|sparse] [--budget MB]
+ */
+public class GameServer implements Closeable {
+    private static final SlideDirection[] DIRECTIONS = SlideDirection.values();
+    private static final int MAX_CELLS = 1 << 20;
+
+    private final SessionRegistry sessions;
+    private final String engine;
+    private final long maxCells;
+    private final ServerSocket server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final SplittableRandom seeds = new SplittableRandom();
+    private volatile boolean closed;
+
+    /**
+     * Listen on a loopback port and start accepting connections
+     * @param port the port, 0 for any free port
+     * @param engine the engine name given to SimulationRunner.createEngine
+     * @param sessions where the games are kept
+     * @throws IOException when the port can't be bound
+     */
+    public GameServer(int port, String engine, SessionRegistry sessions) throws IOException {
+        SimulationRunner.createEngine(engine, new SplittableRandom());
+        this.engine = engine;
+        this.maxCells = engine.equals("sparse") ? NumberGameSparse.MAX_CELLS : MAX_CELLS;
+        this.sessions = sessions;
+        server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        executor = newConnectionExecutor("GameServer");
+        Thread acceptor = new Thread(this::accept, "GameServer-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return an executor running each task on a new virtual thread when
+     *  the runtime supports them, or else on a new small-stack daemon
+     *  platform thread
+     */
+    static ExecutorService newConnectionExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicLong count = new AtomicLong();
+            ThreadFactory factory = task -> {
+                Thread thread = new Thread(null, task, name + "-" + count.incrementAndGet(), 256 << 10);
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public SessionRegistry getSessions() {
+        return sessions;
+    }
+
+    /**
+     * @return the number of requests answered so far
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Stop accepting connections. Open connections are closed as their
+     * threads notice.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("GameServer: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            Connection connection = new Connection();
+            String line;
+            while (!closed && (line = in.readLine()) != null) {
+                boolean quit = line.trim().equalsIgnoreCase("QUIT");
+                StringBuilder reply = quit ? connection.ok() : connection.handle(line);
+                requests.incrementAndGet();
+                out.append(reply).append('\n');
+                if (quit) {
+                    break;
+                }
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // the client went away
+        }
+    }
+
+    /**
+     * The reply buffers of one connection
+     */
+    private class Connection {
+        private final StringBuilder reply = new StringBuilder();
+        private int[] cells = new int[16];
+
+        StringBuilder ok() {
+            reply.setLength(0);
+            return reply.append("OK");
+        }
+
+        private StringBuilder error(String message) {
+            reply.setLength(0);
+            return reply.append("ERR ").append(message);
+        }
+
+        StringBuilder handle(String line) {
+            String[] words = line.trim().split("\\s+");
+            try {
+                switch (words[0].toUpperCase()) {
+                    case "NEW":
+                        return newGame(words);
+                    case "SLIDE":
+                        return slide(words);
+                    case "UNDO":
+                        return undo(words);
+                    case "STATUS":
+                        return status(words);
+                    case "BOARD":
+                        return board(words);
+                    case "TILES":
+                        return tiles(words);
+                    case "CLOSE":
+                        return sessions.remove(id(words, 2)) ? ok() : error("no session");
+                    default:
+                        return error("unknown request");
+                }
+            } catch (IllegalArgumentException e) {
+                return error(e.getMessage() == null ? "invalid request" : e.getMessage());
+            }
+        }
+
+        private StringBuilder newGame(String[] words) {
+            if (words.length != 4 && words.length != 5) {
+                throw new IllegalArgumentException("usage NEW ROWS COLS GOAL [SEED]");
+            }
+            int rows = Integer.parseInt(words[1]);
+            int cols = Integer.parseInt(words[2]);
+            if ((long) rows * cols > maxCells) {
+                throw new IllegalArgumentException("board too large");
+            }
+            long seed;
+            if (words.length == 5) {
+                seed = Long.parseLong(words[4]);
+            } else {
+                synchronized (seeds) {
+                    seed = seeds.nextLong();
+                }
+            }
+            NumberSlider game = SimulationRunner.createEngine(engine, new SplitMixRandom(seed));
+            game.resizeBoard(rows, cols, Integer.parseInt(words[3]));
+            game.reset();
+            return ok().append(' ').append(sessions.add(game));
+        }
+
+        private StringBuilder slide(String[] words) {
+            if (words.length != 3) {
+                throw new IllegalArgumentException("usage SLIDE id DIRECTION");
+            }
+            SlideDirection dir = SlideDirection.valueOf(words[2].toUpperCase());
+            return sessions.play(Long.parseLong(words[1]), game -> {
+                boolean moved = game.getStatus() == GameStatus.IN_PROGRESS && game.slide(dir);
+                return ok().append(moved ? " MOVED " : " UNCHANGED ").append(game.getStatus());
+            });
+        }
+
+        private StringBuilder undo(String[] words) {
+            return sessions.play(id(words, 2), game -> {
+                try {
+                    game.undo();
+                } catch (IllegalStateException e) {
+                    return error("nothing to undo");
+                }
+                return ok();
+            });
+        }
+
+        private StringBuilder status(String[] words) {
+            return sessions.play(id(words, 2),
+                    game -> ok().append(' ').append(game.getStatus()).append(' ').append(game.getMoveCount()));
+        }
+
+        private StringBuilder board(String[] words) {
+            return sessions.play(id(words, 2), game -> {
+                int rows = game.getHeight();
+                int cols = game.getWidth();
+                if ((long) rows * cols > MAX_CELLS) {
+                    return error("board too large, use TILES");
+                }
+                if (cells.length < rows * cols) {
+                    cells = new int[rows * cols];
+                }
+                game.copyValues(cells);
+                StringBuilder b = ok().append(' ').append(rows).append(' ').append(cols);
+                for (int k = 0; k < rows * cols; k++) {
+                    b.append(' ').append(cells[k]);
+                }
+                return b;
+            });
+        }
+
+        private StringBuilder tiles(String[] words) {
+            return sessions.play(id(words, 2), game -> {
+                int[] count = new int[1];
+                game.forEachTile((row, column, value) -> count[0]++);
+                StringBuilder b = ok().append(' ').append(game.getHeight()).append(' ').append(game.getWidth())
+                        .append(' ').append(count[0]);
+                game.forEachTile((row, column, value) ->
+                        b.append(' ').append(row).append(' ').append(column).append(' ').append(value));
+                return b;
+            });
+        }
+
+        private long id(String[] words, int length) {
+            if (words.length != length) {
+                throw new IllegalArgumentException("usage " + words[0].toUpperCase() + " id");
+            }
+            return Long.parseLong(words[1]);
+        }
+    }
+
+    public static void main(String[] arg) throws IOException, InterruptedException {
+        int port = 4096;
+        String engine = "arraylist";
+        long budget = Long.MAX_VALUE;
+        try {
+            if (arg.length % 2 != 0) {
+                throw new IllegalArgumentException("Missing value for " + arg[arg.length - 1]);
+            }
+            for (int k = 0; k < arg.length; k += 2) {
+                switch (arg[k]) {
+                    case "--port":
+                        port = Integer.parseInt(arg[k + 1]);
+                        break;
+                    case "--engine":
+                        engine = arg[k + 1];
+                        break;
+                    case "--budget":
+                        budget = Long.parseLong(arg[k + 1]) << 20;
+                        if (budget <= 0) {
+                            throw new IllegalArgumentException("The budget must be positive");
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg[k]);
+                }
+            }
+            SimulationRunner.createEngine(engine, new SplittableRandom());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: GameServer [--port P] [--engine arraylist|bitboard|sparse] [--budget MB]");
+            System.exit(1);
+        }
+        GameServer server = new GameServer(port, engine, new SessionRegistry(64, budget));
+        System.out.printf("serving %s games on port %d%n", engine, server.getPort());
+        while (true) {
+            Thread.sleep(10000);
+            SessionRegistry sessions = server.getSessions();
+            System.out.printf("%d sessions, %d requests; %d KB on heap, %d games in %d KB off-heap;"
+                            + " %d hits, %d misses, %d evictions%n",
+                    sessions.size(), server.getRequestCount(), sessions.getHotBytes() >> 10,
+                    sessions.getColdCount(), sessions.getColdBytes() >> 10, sessions.getHits(),
+                    sessions.getMisses(), sessions.getEvictions());
+        }
+    }
+}
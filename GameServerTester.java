@@ -0,0 +1,184 @@
+package Project2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GameServerTester {
+    private GameServer server;
+    private Socket socket;
+    private BufferedReader in;
+    private PrintWriter out;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new GameServer(0, "arraylist", new SessionRegistry(4));
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        socket.close();
+        server.close();
+    }
+
+    private String request(String line) throws IOException {
+        out.println(line);
+        return in.readLine();
+    }
+
+    @Test(timeout = 10000)
+    public void sessionShallPlayLikeLocalEngine() throws IOException
+    {
+        String reply = request("NEW 4 5 2048 77");
+        assertTrue(reply, reply.startsWith("OK "));
+        long id = Long.parseLong(reply.substring(3));
+        NumberGameArrayList local = new NumberGameArrayList(77);
+        local.resizeBoard(4, 5, 2048);
+        local.reset();
+        SlideDirection[] dirs = SlideDirection.values();
+        for (int count = 0; count < 30; count++) {
+            SlideDirection dir = dirs[count % 4];
+            boolean moved = local.slide(dir);
+            assertEquals("OK " + (moved ? "MOVED " : "UNCHANGED ") + local.getStatus(),
+                    request("SLIDE " + id + " " + dir.name().toLowerCase()));
+        }
+        int[] cells = new int[20];
+        local.copyValues(cells);
+        StringBuilder expected = new StringBuilder("OK 4 5");
+        for (int v : cells)
+            expected.append(' ').append(v);
+        assertEquals(expected.toString(), request("BOARD " + id));
+        assertEquals("OK " + local.getStatus() + " " + local.getMoveCount(), request("STATUS " + id));
+        assertEquals("OK", request("UNDO " + id));
+        assertEquals("OK", request("CLOSE " + id));
+        assertEquals("ERR no session", request("BOARD " + id));
+    }
+
+    @Test(timeout = 10000)
+    public void badRequestsShallGetErrors() throws IOException
+    {
+        long id = Long.parseLong(request("NEW 3 3 64").substring(3));
+        assertEquals("ERR nothing to undo", request("UNDO " + id));
+        assertTrue(request("SLIDE " + id + " SIDEWAYS").startsWith("ERR "));
+        assertTrue(request("NEW 3 3 63").startsWith("ERR "));
+        assertTrue(request("JUMP").startsWith("ERR "));
+        assertEquals("OK", request("QUIT"));
+        assertNull(in.readLine());
+        assertEquals(1, server.getSessions().size());
+    }
+
+    @Test(timeout = 10000)
+    public void sparseServerShallHostHugeBoards() throws IOException
+    {
+        assertEquals("ERR board too large", request("NEW 10000 10000 2048 5"));
+        try (GameServer sparse = new GameServer(0, "sparse", new SessionRegistry(4));
+             Socket s = new Socket(InetAddress.getLoopbackAddress(), sparse.getPort())) {
+            BufferedReader reply = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter ask = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8);
+            ask.println("NEW 10000 10000 2048 5");
+            long id = Long.parseLong(reply.readLine().substring(3));
+            NumberGameSparse local = new NumberGameSparse(5);
+            local.resizeBoard(10000, 10000, 2048);
+            local.reset();
+            for (SlideDirection dir : SlideDirection.values()) {
+                boolean moved = local.slide(dir);
+                ask.println("SLIDE " + id + " " + dir);
+                assertEquals("OK " + (moved ? "MOVED " : "UNCHANGED ") + local.getStatus(), reply.readLine());
+            }
+            StringBuilder expected = new StringBuilder("OK 10000 10000 " + local.getTileCount());
+            local.forEachTile((row, column, value) ->
+                    expected.append(' ').append(row).append(' ').append(column).append(' ').append(value));
+            ask.println("TILES " + id);
+            assertEquals(expected.toString(), reply.readLine());
+            ask.println("BOARD " + id);
+            assertEquals("ERR board too large, use TILES", reply.readLine());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void registryShallHandOutDistinctIds() throws InterruptedException
+    {
+        SessionRegistry registry = new SessionRegistry(3);
+        assertEquals(4, registry.getStripeCount());
+        Set<Long> ids = new HashSet<>();
+        Thread[] threads = new Thread[4];
+        long[][] created = new long[threads.length][1000];
+        for (int t = 0; t < threads.length; t++) {
+            final long[] mine = created[t];
+            threads[t] = new Thread(() -> {
+                for (int k = 0; k < mine.length; k++)
+                    mine[k] = registry.add(new NumberGameArrayList());
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (long[] mine : created)
+            for (long id : mine)
+                assertTrue(ids.add(id));
+        assertEquals(4000, registry.size());
+        for (long id : created[0])
+            assertTrue(registry.remove(id));
+        assertEquals(3000, registry.size());
+        assertFalse(registry.contains(created[0][0]));
+        assertFalse(registry.remove(created[0][0]));
+    }
+
+    @Test(timeout = 10000)
+    public void evictedGamesShallPlayOnUnchanged()
+    {
+        final int GAMES = 200;
+        SessionRegistry registry = new SessionRegistry(4, 64 << 10);
+        NumberGameArrayList[] local = new NumberGameArrayList[GAMES];
+        long[] ids = new long[GAMES];
+        SlideDirection[] dirs = SlideDirection.values();
+        for (int g = 0; g < GAMES; g++) {
+            local[g] = new NumberGameArrayList(g);
+            local[g].resizeBoard(8, 8, 1 << 20);
+            local[g].reset();
+            NumberGameArrayList hosted = new NumberGameArrayList(new SplitMixRandom(g));
+            hosted.resizeBoard(8, 8, 1 << 20);
+            hosted.reset();
+            ids[g] = registry.add(hosted);
+        }
+        int[] expected = new int[64];
+        int[] actual = new int[64];
+        for (int round = 0; round < 20; round++) {
+            for (int g = 0; g < GAMES; g++) {
+                SlideDirection dir = dirs[(round + g) % 4];
+                boolean moved = local[g].slide(dir);
+                assertEquals(moved, (boolean) registry.play(ids[g], game -> game.slide(dir)));
+                local[g].copyValues(expected);
+                registry.play(ids[g], game -> {
+                    game.copyValues(actual);
+                    return null;
+                });
+                assertArrayEquals(expected, actual);
+            }
+        }
+        assertTrue(registry.getEvictions() > 0);
+        assertTrue(registry.getMisses() > 0);
+        assertTrue(registry.getColdCount() > 0);
+        assertTrue(registry.getHotBytes() <= 64 << 10);
+        for (long id : ids)
+            registry.remove(id);
+        assertEquals(0, registry.getColdCount());
+        assertEquals(0, registry.getColdBytes());
+        assertEquals(0, registry.getHotBytes());
+    }
+}
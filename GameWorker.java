@@ -0,0 +1,182 @@
+package Project2;
+
+import javax.swing.*;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Plays a game on its own thread, so slides on a large board never hold up
+ * the event dispatch thread. The GUI submits commands to a queue; the
+ * worker applies them in order and, whenever the queue drains, publishes
+ * a BoardSnapshot to the event dispatch thread. While the worker is
+ * behind, a slide submitted right after the same slide is dropped, so a
+ * held arrow key does not pile up moves the player never sees.
+ *
+ * After start() the engine belongs to the worker: every other thread must
+ * reach it through submit() or execute().
+ */
+public class GameWorker {
+    public enum Command {
+        UP(SlideDirection.UP),
+        DOWN(SlideDirection.DOWN),
+        LEFT(SlideDirection.LEFT),
+        RIGHT(SlideDirection.RIGHT),
+        UNDO(null),
+        RESET(null);
+
+        private final SlideDirection direction;
+
+        Command(SlideDirection direction) {
+            this.direction = direction;
+        }
+    }
+
+    private final NumberSlider game;
+    private final Consumer<BoardSnapshot> listener;
+    /** Commands and tasks waiting for the worker, guarded by itself */
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private final Thread thread;
+    private volatile boolean stopped;
+    private long coalesced;
+
+    /**
+     * @param game the game to play, not touched by the caller after start()
+     * @param listener receives every snapshot on the event dispatch thread
+     */
+    public GameWorker(NumberSlider game, Consumer<BoardSnapshot> listener) {
+        this.game = game;
+        this.listener = listener;
+        thread = new Thread(this::run, "GameWorker");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Start the worker thread, which publishes the current board first
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stop the worker after the command it is playing. Pending commands
+     * are dropped and snapshots not yet delivered are discarded.
+     */
+    public void stop() {
+        synchronized (queue) {
+            stopped = true;
+            queue.clear();
+            queue.notifyAll();
+        }
+    }
+
+    /**
+     * Queue a command. A slide is dropped when the same slide is still
+     * waiting at the end of the queue.
+     * @param command the command to play
+     */
+    public void submit(Command command) {
+        synchronized (queue) {
+            if (command.direction != null && queue.peekLast() == command) {
+                coalesced++;
+                return;
+            }
+            enqueue(command);
+        }
+    }
+
+    /**
+     * Queue a task run on the worker thread, for changes to the engine
+     * that have no command. A snapshot is published once it has run.
+     * @param task the task, free to use the engine
+     */
+    public void execute(Runnable task) {
+        synchronized (queue) {
+            enqueue(task);
+        }
+    }
+
+    /**
+     * @return the number of slides dropped because the same slide was
+     *  still waiting
+     */
+    public long getCoalesced() {
+        synchronized (queue) {
+            return coalesced;
+        }
+    }
+
+    private void enqueue(Object entry) {
+        if (!stopped) {
+            queue.addLast(entry);
+            queue.notifyAll();
+        }
+    }
+
+    private void run() {
+        publish(false);
+        while (true) {
+            Object next;
+            synchronized (queue) {
+                while (queue.isEmpty() && !stopped) {
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (stopped) {
+                    return;
+                }
+                next = queue.pollFirst();
+            }
+            boolean undoRefused = false;
+            if (next instanceof Command) {
+                undoRefused = play((Command) next);
+            } else {
+                ((Runnable) next).run();
+            }
+            boolean idle;
+            synchronized (queue) {
+                idle = queue.isEmpty();
+            }
+            // skip the frames of a backlog, but never an event the player
+            // has to see
+            if (idle || undoRefused || game.getStatus() != GameStatus.IN_PROGRESS) {
+                publish(undoRefused);
+            }
+        }
+    }
+
+    /**
+     * @return true when an undo found nothing to take back
+     */
+    private boolean play(Command command) {
+        switch (command) {
+            case UNDO:
+                try {
+                    game.undo();
+                } catch (IllegalStateException e) {
+                    return true;
+                }
+                break;
+            case RESET:
+                game.reset();
+                break;
+            default:
+                // slides queued behind the end of a game are ignored
+                if (game.getStatus() == GameStatus.IN_PROGRESS) {
+                    game.slide(command.direction);
+                }
+        }
+        return false;
+    }
+
+    private void publish(boolean undoRefused) {
+        BoardSnapshot snapshot = BoardSnapshot.of(game, undoRefused);
+        SwingUtilities.invokeLater(() -> {
+            if (!stopped) {
+                listener.accept(snapshot);
+            }
+        });
+    }
+}
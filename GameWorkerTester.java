@@ -0,0 +1,103 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GameWorkerTester {
+    private static final int[][] BOARD = {
+            {2, 0, 2, 0},
+            {0, 4, 0, 4},
+            {8, 0, 0, 8},
+            {0, 0, 0, 0}
+    };
+
+    private final BlockingQueue<BoardSnapshot> snapshots = new LinkedBlockingQueue<>();
+
+    private BoardSnapshot next() throws InterruptedException {
+        BoardSnapshot snapshot = snapshots.poll(10, TimeUnit.SECONDS);
+        assertNotNull("no snapshot published", snapshot);
+        return snapshot;
+    }
+
+    private static NumberGameArrayList game(long seed) {
+        NumberGameArrayList game = new NumberGameArrayList(seed);
+        game.resizeBoard(4, 4, 1024);
+        game.setValues(BOARD);
+        return game;
+    }
+
+    @Test(timeout = 20000)
+    public void workerShallPlayCommandsInOrder() throws InterruptedException
+    {
+        GameWorker worker = new GameWorker(game(5), snapshots::add);
+        worker.start();
+        try {
+            BoardSnapshot first = next();
+            assertEquals(0, first.getMoveCount());
+            assertEquals(8, first.getHighest());
+            worker.submit(GameWorker.Command.LEFT);
+            worker.submit(GameWorker.Command.UP);
+            BoardSnapshot last = next();
+            while (last.getMoveCount() < 2) {
+                last = next();
+            }
+            NumberGameArrayList expected = game(5);
+            expected.slide(SlideDirection.LEFT);
+            expected.slide(SlideDirection.UP);
+            int[] values = new int[16];
+            expected.copyValues(values);
+            for (int r = 0; r < 4; r++) {
+                for (int c = 0; c < 4; c++) {
+                    assertEquals(values[4 * r + c], last.getValue(r, c));
+                }
+            }
+            assertEquals(GameStatus.IN_PROGRESS, last.getStatus());
+        } finally {
+            worker.stop();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void repeatedSlidesShallCoalesceWhileBehind() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        GameWorker worker = new GameWorker(game(7), snapshots::add);
+        worker.start();
+        try {
+            next();
+            worker.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            for (int k = 0; k < 50; k++) {
+                worker.submit(GameWorker.Command.LEFT);
+            }
+            worker.submit(GameWorker.Command.UNDO);
+            worker.submit(GameWorker.Command.UNDO);
+            assertEquals(49, worker.getCoalesced());
+            release.countDown();
+            BoardSnapshot last = next();
+            // the second undo goes past the first move
+            while (!last.isUndoRefused()) {
+                last = next();
+            }
+            assertEquals(0, last.getMoveCount());
+            for (int r = 0; r < 4; r++) {
+                for (int c = 0; c < 4; c++) {
+                    assertEquals(BOARD[r][c], last.getValue(r, c));
+                }
+            }
+        } finally {
+            worker.stop();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package Project2;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A seeded NumberGameArrayList that records how it is played, so the game
+ * can be appended to a MoveJournal and replayed later. Only the slides
+ * that change the board and the undos that succeed are recorded: the
+ * others leave the board and the tile generator untouched. A slide is
+ * kept in two bits, its SlideDirection ordinal; an undo is kept as the
+ * index of its step.
+ *
+ * Every checkpointInterval steps the whole game is saved as a checkpoint,
+ * so a replay can start from the nearest one instead of the first move.
+ * A checkpoint includes the undo history, keep the undo depth small for
+ * long games.
+ *
+ * The board is only changed through slide() and undo(), so the game is
+ * a PlayableGame rather than a NumberSlider: it is set up once by its
+ * constructor, and a new game is a new JournaledGame.
+ */
+public class JournaledGame implements PlayableGame {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 256;
+
+    private final NumberGameArrayList game;
+    private final long seed;
+    private final int undoDepth;
+    private final int checkpointInterval;
+    private int steps;
+    private int slides;
+    private byte[] directions = new byte[64];
+    private int undos;
+    private int[] undoSteps = new int[16];
+    private int checkpoints;
+    private ByteBuffer checkpointData = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Start a new game and place its first two tiles
+     * @param seed the seed of the tile generator
+     * @param height the number of rows in the board
+     * @param width the number of columns in the board
+     * @param goal the winning value
+     * @param undoDepth the maximum number of moves kept for undo
+     * @param checkpointInterval the number of steps between two checkpoints
+     * @throws IllegalArgumentException when the board, the goal, the depth
+     *  or the interval is invalid
+     */
+    public JournaledGame(long seed, int height, int width, int goal, int undoDepth, int checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Invalid checkpoint interval " + checkpointInterval);
+        }
+        this.seed = seed;
+        this.undoDepth = undoDepth;
+        this.checkpointInterval = checkpointInterval;
+        game = start(seed, height, width, goal, undoDepth);
+    }
+
+    public JournaledGame(long seed, int height, int width, int goal) {
+        this(seed, height, width, goal, Integer.MAX_VALUE, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @return a game in the state a journaled game starts from
+     */
+    static NumberGameArrayList start(long seed, int height, int width, int goal, int undoDepth) {
+        NumberGameArrayList game = new NumberGameArrayList(seed);
+        game.setUndoDepth(undoDepth);
+        game.resizeBoard(height, width, goal);
+        game.reset();
+        return game;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the number of recorded slides and undos
+     */
+    public int getStepCount() {
+        return steps;
+    }
+
+    @Override
+    public boolean slide(SlideDirection dir) {
+        return slide(dir, null);
+    }
+
+    @Override
+    public boolean slide(SlideDirection dir, MoveResult result) {
+        if (!game.slide(dir, result)) {
+            return false;
+        }
+        if (slides == 4 * directions.length) {
+            directions = Arrays.copyOf(directions, directions.length * 2);
+        }
+        directions[slides >> 2] |= (byte) (dir.ordinal() << (2 * (slides & 3)));
+        slides++;
+        step();
+        return true;
+    }
+
+    @Override
+    public void undo() {
+        game.undo();
+        if (undos == undoSteps.length) {
+            undoSteps = Arrays.copyOf(undoSteps, undos * 2);
+        }
+        undoSteps[undos++] = steps;
+        step();
+    }
+
+    private void step() {
+        steps++;
+        if (steps % checkpointInterval == 0) {
+            int size = 16 + game.getSaveSize();
+            if (checkpointData.remaining() < size) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * checkpointData.capacity(),
+                        checkpointData.position() + size)).order(ByteOrder.LITTLE_ENDIAN);
+                checkpointData.flip();
+                checkpointData = larger.put(checkpointData);
+            }
+            checkpointData.putInt(steps).putInt(slides).putInt(undos).putInt(game.getSaveSize());
+            game.save(checkpointData);
+            checkpoints++;
+        }
+    }
+
+    /**
+     * @return the number of bytes writeRecord() writes
+     */
+    int getRecordSize() {
+        return 44 + 4 * undos + (slides + 3) / 4 + checkpointData.position();
+    }
+
+    /**
+     * Write the game as one journal record, in the layout read by
+     * MoveJournal.Entry
+     */
+    void writeRecord(ByteBuffer buffer) {
+        buffer.putInt(getRecordSize() - 4);
+        buffer.putLong(seed).putInt(game.getHeight()).putInt(game.getWidth()).putInt(game.getWinningValue());
+        buffer.putInt(undoDepth).putInt(steps).putInt(slides).putInt(undos).putInt(checkpoints);
+        for (int k = 0; k < undos; k++) {
+            buffer.putInt(undoSteps[k]);
+        }
+        buffer.put(directions, 0, (slides + 3) / 4);
+        buffer.put(checkpointData.array(), 0, checkpointData.position());
+    }
+
+    @Override
+    public ArrayList<Cell> getNonEmptyTiles() {
+        return game.getNonEmptyTiles();
+    }
+
+    @Override
+    public void forEachTile(TileVisitor visitor) {
+        game.forEachTile(visitor);
+    }
+
+    @Override
+    public void copyValues(int[] buffer) {
+        game.copyValues(buffer);
+    }
+
+    @Override
+    public int getHeight() {
+        return game.getHeight();
+    }
+
+    @Override
+    public int getWidth() {
+        return game.getWidth();
+    }
+
+    @Override
+    public int getMoveCount() {
+        return game.getMoveCount();
+    }
+
+    @Override
+    public GameStatus getStatus() {
+        return game.getStatus();
+    }
+}
@@ -0,0 +1,411 @@
+package Project2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An automated player that picks its move by sampling instead of tree
+ * search. Every direction that changes the board is tried, and from the
+ * board it leaves a number of rollouts play random moves until the game
+ * is lost. The direction with the best mean outcome is played.
+ *
+ * Rollouts never touch the game itself. A 4x4 board whose tiles fit in
+ * four bits is copied into a packed long and moved with
+ * NumberGameBitBoard.move(), any other board is copied into a row-major
+ * int array and moved with NumberGameArrayList.slideBoard(). Rollouts are
+ * split across a fork-join pool in a fixed pattern, each leaf drawing from
+ * its own split of the player's generator, so the chosen moves depend on
+ * the seed only and not on the number of threads.
+ *
+ * A player is not thread safe, use one player per thread.
+ */
+public class MonteCarloPlayer implements MovePolicy {
+    public static final int DEFAULT_ROLLOUTS = 1000;
+    /* rollouts run by one leaf task, fixed so the split pattern only depends on the seed */
+    private static final int BATCH_SIZE = 32;
+
+    /**
+     * The value of a finished rollout
+     */
+    public enum Outcome {
+        /** the sum of the tiles created by merges, including the first move */
+        SCORE,
+        /** the highest tile on the final board */
+        HIGHEST
+    }
+
+    private static final SlideDirection[] DIRECTIONS = SlideDirection.values();
+    /* the bitboard caps merges at this code, larger tiles use the array */
+    private static final int MAX_PACKED_CODE = NumberGameBitBoard.MAX_CODE - 2;
+
+    private final int height;
+    private final int width;
+    private final int rollouts;
+    private final Outcome outcome;
+    private final ForkJoinPool pool;
+    private final SplittableRandom random;
+
+    private long moves;
+    private long rolloutCount;
+    private long rolloutMoves;
+    private long searchNanos;
+
+    /**
+     * Create a player using DEFAULT_ROLLOUTS rollouts per direction on the
+     * common pool
+     *
+     * @param height the number of rows of the games to play
+     * @param width the number of columns of the games to play
+     * @param seed the seed of the rollout generator
+     */
+    public MonteCarloPlayer(int height, int width, long seed) {
+        this(height, width, DEFAULT_ROLLOUTS, Outcome.SCORE, ForkJoinPool.commonPool(), seed);
+    }
+
+    /**
+     * @param height the number of rows of the games to play
+     * @param width the number of columns of the games to play
+     * @param rollouts the number of rollouts for each direction
+     * @param outcome how a finished rollout is valued
+     * @param pool the pool running the rollouts when a move is chosen
+     *             outside of any fork-join pool, otherwise the rollouts
+     *             join the pool of the calling task
+     * @param seed the seed of the rollout generator
+     * @throws IllegalArgumentException when an argument is out of range
+     */
+    public MonteCarloPlayer(int height, int width, int rollouts, Outcome outcome, ForkJoinPool pool, long seed) {
+        if (height <= 0 || width <= 0 || rollouts <= 0 || outcome == null || pool == null) {
+            throw new IllegalArgumentException();
+        }
+        this.height = height;
+        this.width = width;
+        this.rollouts = rollouts;
+        this.outcome = outcome;
+        this.pool = pool;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Slide the game in the direction with the best mean rollout.
+     *
+     * @param game a game of this player's dimension
+     * @return false when no direction changes the board
+     * @throws IllegalArgumentException when the board is of another size
+     */
+    @Override
+    public boolean playMove(PlayableGame game) {
+        SlideDirection dir = bestMove(game);
+        return dir != null && game.slide(dir);
+    }
+
+    /**
+     * @param game a game of this player's dimension
+     * @return the direction with the best mean rollout, or null when no
+     *  direction changes the board
+     * @throws IllegalArgumentException when the board is of another size
+     */
+    public SlideDirection bestMove(PlayableGame game) {
+        if (game.getHeight() != height || game.getWidth() != width) {
+            throw new IllegalArgumentException("MonteCarloPlayer plays " + height + "x" + width + " boards");
+        }
+        long start = System.nanoTime();
+        int[] cells = new int[height * width];
+        game.copyValues(cells);
+        double[] means = means(cells, pack(cells));
+        SlideDirection best = null;
+        double bestMean = -1;
+        for (int k = 0; k < DIRECTIONS.length; k++) {
+            if (means[k] > bestMean) {
+                bestMean = means[k];
+                best = DIRECTIONS[k];
+            }
+        }
+        searchNanos += System.nanoTime() - start;
+        if (best != null) {
+            moves++;
+        }
+        return best;
+    }
+
+    /**
+     * @return the number of moves chosen so far
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return the number of rollouts played so far
+     */
+    public long getRollouts() {
+        return rolloutCount;
+    }
+
+    /**
+     * @return the number of random moves played by all the rollouts
+     */
+    public long getRolloutMoves() {
+        return rolloutMoves;
+    }
+
+    /**
+     * @return the total time spent choosing moves, in nanoseconds
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    public double getRolloutsPerSecond() {
+        return searchNanos == 0 ? 0 : rolloutCount * 1e9 / searchNanos;
+    }
+
+    /**
+     * Run the rollouts of every direction from a board.
+     *
+     * @param cells the row-major board
+     * @param packed the board as returned by pack(), or -1 to roll out on
+     *               the array
+     * @return the mean rollout of every direction, -1 for the illegal ones
+     */
+    double[] means(int[] cells, long packed) {
+        Root root = new Root(cells, packed, random.split());
+        return ForkJoinTask.inForkJoinPool() ? root.invoke() : pool.invoke(root);
+    }
+
+    /**
+     * Try every direction and run the rollouts of all the legal ones
+     * side by side. The mean of an illegal direction is -1.
+     */
+    private class Root extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cells;
+        private final long packed;
+        private final SplittableRandom random;
+
+        Root(int[] cells, long packed, SplittableRandom random) {
+            this.cells = cells;
+            this.packed = packed;
+            this.random = random;
+        }
+
+        @Override
+        protected double[] compute() {
+            List<Rollouts> tasks = new ArrayList<>();
+            Rollouts[] byDirection = new Rollouts[DIRECTIONS.length];
+            for (int k = 0; k < DIRECTIONS.length; k++) {
+                SlideDirection dir = DIRECTIONS[k];
+                // split for every direction so the seeds don't depend on which ones are legal
+                SplittableRandom split = random.split();
+                Rollouts task;
+                if (packed != -1) {
+                    long moved = NumberGameBitBoard.move(packed, dir);
+                    if (moved == packed) {
+                        continue;
+                    }
+                    task = new Rollouts(moved, null, NumberGameBitBoard.moveScore(packed, dir), rollouts, split);
+                } else {
+                    int[] moved = cells.clone();
+                    int score = NumberGameArrayList.slideBoard(moved, height, width, dir);
+                    if (Arrays.equals(moved, cells)) {
+                        continue;
+                    }
+                    task = new Rollouts(0, moved, score, rollouts, split);
+                }
+                byDirection[k] = task;
+                tasks.add(task);
+            }
+            invokeAll(tasks);
+            double[] means = new double[DIRECTIONS.length];
+            for (int k = 0; k < DIRECTIONS.length; k++) {
+                if (byDirection[k] == null) {
+                    means[k] = -1;
+                    continue;
+                }
+                Totals totals = byDirection[k].join();
+                means[k] = totals.value / totals.count;
+                rolloutCount += totals.count;
+                rolloutMoves += totals.moves;
+            }
+            return means;
+        }
+    }
+
+    private static class Totals {
+        private long count;
+        private long moves;
+        private double value;
+
+        private Totals merge(Totals other) {
+            count += other.count;
+            moves += other.moves;
+            value += other.value;
+            return this;
+        }
+    }
+
+    /**
+     * A batch of rollouts from the same board, packed when cells is null
+     */
+    private class Rollouts extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final long packed;
+        private final int[] cells;
+        private final int firstScore;
+        private final int count;
+        private final SplittableRandom random;
+
+        Rollouts(long packed, int[] cells, int firstScore, int count, SplittableRandom random) {
+            this.packed = packed;
+            this.cells = cells;
+            this.firstScore = firstScore;
+            this.count = count;
+            this.random = random;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (count > BATCH_SIZE) {
+                Rollouts left = new Rollouts(packed, cells, firstScore, count / 2, random.split());
+                Rollouts right = new Rollouts(packed, cells, firstScore, count - count / 2, random.split());
+                left.fork();
+                return right.compute().merge(left.join());
+            }
+            Totals totals = new Totals();
+            int[] board = cells == null ? null : new int[cells.length];
+            int[] next = cells == null ? null : new int[cells.length];
+            for (int k = 0; k < count; k++) {
+                if (cells == null) {
+                    rolloutPacked(totals);
+                } else {
+                    System.arraycopy(cells, 0, board, 0, cells.length);
+                    rolloutCells(board, next, totals);
+                }
+            }
+            return totals;
+        }
+
+        private void rolloutPacked(Totals totals) {
+            long board = spawn(packed, random);
+            long score = firstScore;
+            while (true) {
+                int first = random.nextInt(DIRECTIONS.length);
+                long moved = board;
+                for (int k = 0; k < DIRECTIONS.length && moved == board; k++) {
+                    SlideDirection dir = DIRECTIONS[(first + k) % DIRECTIONS.length];
+                    moved = NumberGameBitBoard.move(board, dir);
+                    if (moved != board) {
+                        score += NumberGameBitBoard.moveScore(board, dir);
+                    }
+                }
+                if (moved == board) {
+                    break;
+                }
+                board = spawn(moved, random);
+                totals.moves++;
+            }
+            int highest = 0;
+            for (int k = 0; k < 16; k++) {
+                highest = Math.max(highest, (int) (board >>> (4 * k)) & 0xF);
+            }
+            totals.count++;
+            totals.value += outcome == Outcome.SCORE ? score : NumberGameBitBoard.decode(highest);
+        }
+
+        private void rolloutCells(int[] board, int[] next, Totals totals) {
+            spawn(board, random);
+            long score = firstScore;
+            while (true) {
+                int first = random.nextInt(DIRECTIONS.length);
+                boolean moved = false;
+                for (int k = 0; k < DIRECTIONS.length && !moved; k++) {
+                    System.arraycopy(board, 0, next, 0, board.length);
+                    int gained = NumberGameArrayList.slideBoard(next, height, width,
+                            DIRECTIONS[(first + k) % DIRECTIONS.length]);
+                    if (!Arrays.equals(board, next)) {
+                        score += gained;
+                        moved = true;
+                    }
+                }
+                if (!moved) {
+                    break;
+                }
+                System.arraycopy(next, 0, board, 0, board.length);
+                spawn(board, random);
+                totals.moves++;
+            }
+            int highest = 0;
+            for (int value : board) {
+                highest = Math.max(highest, value);
+            }
+            totals.count++;
+            totals.value += outcome == Outcome.SCORE ? score : highest;
+        }
+    }
+
+    /**
+     * @return the board packed for NumberGameBitBoard, or -1 when the board
+     *  is not 4x4 or holds a tile too large for the packed rollouts. A
+     *  large tile on the last cell makes the packed board negative, but
+     *  never -1 since the codes stop at MAX_PACKED_CODE.
+     */
+    long pack(int[] cells) {
+        if (height != NumberGameBitBoard.SIZE || width != NumberGameBitBoard.SIZE) {
+            return -1;
+        }
+        long board = 0;
+        for (int k = 0; k < cells.length; k++) {
+            int code = RowTransitionTable.encode(cells[k]);
+            if (code < 0 || code > MAX_PACKED_CODE) {
+                return -1;
+            }
+            board |= (long) code << (4 * k);
+        }
+        return board;
+    }
+
+    /**
+     * Place a 2 or a 4 on a random empty cell of a packed board, the same
+     * way placeRandomValue() does. A full board is returned unchanged.
+     */
+    private static long spawn(long board, SplittableRandom random) {
+        long x = board | (board >>> 1);
+        x |= x >>> 2;
+        long empty = ~x & 0x1111111111111111L;
+        int count = Long.bitCount(empty);
+        if (count == 0) {
+            return board;
+        }
+        int code = 2 + random.nextInt(2);
+        for (int target = random.nextInt(count); target > 0; target--) {
+            empty &= empty - 1;
+        }
+        return board | Long.lowestOneBit(empty) * code;
+    }
+
+    private static void spawn(int[] board, SplittableRandom random) {
+        int count = 0;
+        for (int value : board) {
+            if (value == 0) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        int value = 1 << (1 + random.nextInt(2));
+        int target = random.nextInt(count);
+        for (int k = 0; k < board.length; k++) {
+            if (board[k] == 0 && target-- == 0) {
+                board[k] = value;
+                return;
+            }
+        }
+    }
+}
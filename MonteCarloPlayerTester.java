@@ -0,0 +1,108 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class MonteCarloPlayerTester {
+    private static final int ROLLOUTS = 50;
+
+    private static MonteCarloPlayer player(int size, int threads, long seed) {
+        return new MonteCarloPlayer(size, size, ROLLOUTS, MonteCarloPlayer.Outcome.SCORE,
+                new ForkJoinPool(threads), seed);
+    }
+
+    @Test
+    public void noMoveShallBeFoundOnLostBoard()
+    {
+        NumberGameArrayList gameLogic = new NumberGameArrayList();
+        gameLogic.resizeBoard(3, 3, 2048);
+        int[][] mat = {
+                {2, 4, 2},
+                {4, 2, 4},
+                {2, 4, 2}
+        };
+        gameLogic.setValues(mat);
+        MonteCarloPlayer mc = player(3, 1, 1);
+        assertNull(mc.bestMove(gameLogic));
+        assertFalse(mc.playMove(gameLogic));
+        assertEquals(0, mc.getRollouts());
+    }
+
+    @Test
+    public void onlyLegalMoveShallBeChosen()
+    {
+        NumberGameBitBoard gameLogic = new NumberGameBitBoard();
+        gameLogic.resizeBoard(4, 4, 2048);
+        int[][] mat = {
+                {0, 2, 4, 8},
+                {0, 4, 8, 2},
+                {0, 2, 4, 8},
+                {0, 4, 8, 2}
+        };
+        gameLogic.setValues(mat);
+        MonteCarloPlayer mc = player(4, 2, 1);
+        assertEquals(SlideDirection.LEFT, mc.bestMove(gameLogic));
+        assertEquals(ROLLOUTS, mc.getRollouts());
+    }
+
+    @Test(timeout = 30000)
+    public void movesShallNotDependOnThreadCount()
+    {
+        for (int size : new int[] {4, 5}) {
+            NumberGameArrayList one = new NumberGameArrayList(3L);
+            NumberGameArrayList many = new NumberGameArrayList(3L);
+            one.resizeBoard(size, size, 2048);
+            many.resizeBoard(size, size, 2048);
+            one.reset();
+            many.reset();
+            MonteCarloPlayer single = player(size, 1, 99);
+            MonteCarloPlayer parallel = player(size, 4, 99);
+            for (int k = 0; k < 30 && one.getStatus() == GameStatus.IN_PROGRESS; k++) {
+                SlideDirection dir = single.bestMove(one);
+                assertEquals(dir, parallel.bestMove(many));
+                assertTrue(one.slide(dir));
+                assertTrue(many.slide(dir));
+            }
+            assertEquals(single.getRolloutMoves(), parallel.getRolloutMoves());
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void largeCornerTileShallStayPacked()
+    {
+        int[] cells = {
+                2, 4, 8, 16,
+                0, 2, 0, 4,
+                0, 0, 2, 32,
+                0, 0, 64, 128
+        };
+        for (int corner : new int[] {128, 1024, 4096}) {
+            cells[15] = corner;
+            long packed = player(4, 1, 5).pack(cells);
+            assertTrue(packed < 0);
+            assertNotEquals(-1, packed);
+            /* an empty array, so the means can only come from the packed board */
+            double[] fromPacked = player(4, 1, 5).means(new int[16], packed);
+            double[] fromCells = player(4, 2, 5).means(cells, -1);
+            assertArrayEquals(fromCells, fromPacked, 1e-9);
+        }
+    }
+
+    @Test
+    public void playerShallRefuseLargerBoards()
+    {
+        NumberGameArrayList gameLogic = new NumberGameArrayList();
+        gameLogic.resizeBoard(5, 5, 2048);
+        int[][] mat = new int[5][5];
+        mat[4][0] = 2;
+        gameLogic.setValues(mat);
+        try {
+            player(4, 1, 1).bestMove(gameLogic);
+            fail("a tile outside the 4x4 board should be refused");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package Project2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only file of recorded games. Each JournaledGame is appended as
+ * one record, and any game of the journal can be rebuilt at any step by
+ * restoring its nearest checkpoint and replaying the steps after it with
+ * the same seeded tile generator.
+ *
+ * The file is little-endian: the magic number and format version, then
+ * one record per game. A record is its length, the seed, height, width,
+ * goal and undo depth, the step, slide, undo and checkpoint counts, the
+ * step index of every undo, the slide directions packed four per byte,
+ * then every checkpoint as its step, slide and undo counts, its length
+ * and a game written by NumberGameArrayList.save(ByteBuffer).
+ *
+ * Usage: MoveJournal FILE [GAME [STEP]]
+ * lists the games of the journal, or prints a game at the end or at a
+ * step.
+ */
+public class MoveJournal implements Closeable {
+    private static final int MAGIC = 0x4D4A524E;
+    private static final int VERSION = 1;
+    private static final SlideDirection[] DIRECTIONS = SlideDirection.values();
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 12).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Open a journal for appending, creating it when it does not exist
+     * @param path the journal file
+     * @throws IOException when the file can't be opened or is not a journal
+     */
+    public MoveJournal(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                buffer.putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(buffer);
+            } else {
+                readHeader(channel, path);
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Append a game as it is now. The same game may be appended again
+     * later, as a new record.
+     * @param game the game to append
+     * @throws IOException when the journal can't be written
+     */
+    public synchronized void append(JournaledGame game) throws IOException {
+        int size = game.getRecordSize();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(size) << 1).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer.clear();
+        game.writeRecord(buffer);
+        buffer.flip();
+        writeFully(buffer);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeFully(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    private static void readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Not a move journal: " + path);
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a move journal: " + path);
+        }
+    }
+
+    /**
+     * One recorded game, read back from a journal
+     */
+    public static class Entry {
+        private final long seed;
+        private final int height;
+        private final int width;
+        private final int goal;
+        private final int undoDepth;
+        private final int steps;
+        private final int[] undoSteps;
+        private final byte[] directions;
+        private final int[] checkpointSteps;
+        private final int[] checkpointSlides;
+        private final int[] checkpointUndos;
+        private final byte[][] checkpoints;
+
+        private Entry(ByteBuffer record) {
+            seed = record.getLong();
+            height = record.getInt();
+            width = record.getInt();
+            goal = record.getInt();
+            undoDepth = record.getInt();
+            steps = record.getInt();
+            int slides = record.getInt();
+            int undos = record.getInt();
+            int count = record.getInt();
+            if (steps < 0 || slides < 0 || undos < 0 || count < 0 || slides + undos != steps
+                    || 4L * undos + (slides + 3L) / 4 > record.remaining()) {
+                throw new IllegalArgumentException("Corrupt journal record");
+            }
+            undoSteps = new int[undos];
+            for (int k = 0; k < undos; k++) {
+                undoSteps[k] = record.getInt();
+            }
+            directions = new byte[(slides + 3) / 4];
+            record.get(directions);
+            if (count > record.remaining() / 16) {
+                throw new IllegalArgumentException("Corrupt journal record");
+            }
+            checkpointSteps = new int[count];
+            checkpointSlides = new int[count];
+            checkpointUndos = new int[count];
+            checkpoints = new byte[count][];
+            for (int k = 0; k < count; k++) {
+                checkpointSteps[k] = record.getInt();
+                checkpointSlides[k] = record.getInt();
+                checkpointUndos[k] = record.getInt();
+                int length = record.getInt();
+                if (length < 0 || length > record.remaining()) {
+                    throw new IllegalArgumentException("Corrupt journal record");
+                }
+                checkpoints[k] = new byte[length];
+                record.get(checkpoints[k]);
+            }
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getGoal() {
+            return goal;
+        }
+
+        /**
+         * @return the number of recorded slides and undos
+         */
+        public int getStepCount() {
+            return steps;
+        }
+
+        /**
+         * Rebuild the game as it was after a number of steps
+         * @param step the number of steps to play, 0 for the first board
+         * @return a new game in that state, whose tiles continue as the
+         *  recorded game's did
+         * @throws IllegalArgumentException when step is outside the record
+         * @throws IllegalStateException when the engine does not replay the
+         *  record, for instance after a change of the slide rules
+         */
+        public NumberGameArrayList replay(int step) {
+            if (step < 0 || step > steps) {
+                throw new IllegalArgumentException("Step " + step + " of " + steps);
+            }
+            int c = checkpoints.length - 1;
+            while (c >= 0 && checkpointSteps[c] > step) {
+                c--;
+            }
+            NumberGameArrayList game;
+            int done = 0;
+            int slide = 0;
+            int undo = 0;
+            if (c < 0) {
+                game = JournaledGame.start(seed, height, width, goal, undoDepth);
+            } else {
+                game = new NumberGameArrayList(seed);
+                game.restore(ByteBuffer.wrap(checkpoints[c]));
+                done = checkpointSteps[c];
+                slide = checkpointSlides[c];
+                undo = checkpointUndos[c];
+            }
+            for (; done < step; done++) {
+                if (undo < undoSteps.length && undoSteps[undo] == done) {
+                    try {
+                        game.undo();
+                    } catch (IllegalStateException e) {
+                        throw new IllegalStateException("Undo at step " + done + " does not replay", e);
+                    }
+                    undo++;
+                } else {
+                    SlideDirection dir = DIRECTIONS[directions[slide >> 2] >> (2 * (slide & 3)) & 3];
+                    if (!game.slide(dir)) {
+                        throw new IllegalStateException("Slide " + dir + " at step " + done + " does not replay");
+                    }
+                    slide++;
+                }
+            }
+            return game;
+        }
+    }
+
+    /**
+     * Read every game of a journal
+     * @param path the journal file
+     * @return the games in the order they were appended
+     * @throws IOException when the file can't be read or is not a journal
+     */
+    public static List<Entry> read(Path path) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            readHeader(in, path);
+            List<Entry> entries = new ArrayList<>();
+            ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            long position = 8;
+            long size = in.size();
+            while (position < size) {
+                length.clear();
+                while (length.hasRemaining()) {
+                    if (in.read(length, position + length.position()) < 0) {
+                        throw new IOException("Truncated move journal: " + path);
+                    }
+                }
+                int n = length.flip().getInt();
+                if (n < 40 || n > size - position - 4) {
+                    throw new IOException("Corrupt move journal: " + path);
+                }
+                ByteBuffer record = ByteBuffer.allocate(n).order(ByteOrder.LITTLE_ENDIAN);
+                while (record.hasRemaining()) {
+                    in.read(record, position + 4 + record.position());
+                }
+                record.flip();
+                try {
+                    entries.add(new Entry(record));
+                } catch (IllegalArgumentException | BufferUnderflowException e) {
+                    throw new IOException("Corrupt move journal: " + path, e);
+                }
+                position += 4 + n;
+            }
+            return entries;
+        }
+    }
+
+    public static void main(String[] arg) throws IOException {
+        if (arg.length < 1 || arg.length > 3) {
+            System.err.println("Usage: MoveJournal FILE [GAME [STEP]]");
+            System.exit(1);
+        }
+        List<Entry> entries = read(Paths.get(arg[0]));
+        if (arg.length == 1) {
+            for (int k = 0; k < entries.size(); k++) {
+                Entry e = entries.get(k);
+                System.out.printf("%d: seed %d, %dx%d to %d, %d steps%n",
+                        k, e.getSeed(), e.getHeight(), e.getWidth(), e.getGoal(), e.getStepCount());
+            }
+            return;
+        }
+        Entry entry = entries.get(Integer.parseInt(arg[1]));
+        int step = arg.length == 3 ? Integer.parseInt(arg[2]) : entry.getStepCount();
+        long start = System.nanoTime();
+        NumberGameArrayList game = entry.replay(step);
+        double millis = (System.nanoTime() - start) / 1e6;
+        new ConsoleRenderer(new OutputStreamWriter(System.out), false, 5).render(game);
+        System.out.printf("step %d of %d, %d moves, %s, replayed in %.2f ms%n",
+                step, entry.getStepCount(), game.getMoveCount(), game.getStatus(), millis);
+    }
+}
@@ -0,0 +1,100 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MoveJournalTester {
+    @Test(timeout = 20000)
+    public void replayShallRebuildEveryStep() throws IOException
+    {
+        Random gen = new Random(11);
+        Path file = Files.createTempFile("journal", ".bin");
+        Files.delete(file);
+        List<List<int[]>> boards = new ArrayList<>();
+        try {
+            try (MoveJournal journal = new MoveJournal(file)) {
+                for (int g = 0; g < 3; g++) {
+                    JournaledGame game = new JournaledGame(gen.nextLong(), 4 + g, 4, 1 << 20, 8, 16);
+                    List<int[]> seen = new ArrayList<>();
+                    seen.add(values(game));
+                    for (int count = 0; count < 400 && game.getStatus() == GameStatus.IN_PROGRESS; count++) {
+                        boolean changed;
+                        if (gen.nextInt(5) == 0) {
+                            try {
+                                game.undo();
+                                changed = true;
+                            } catch (IllegalStateException e) {
+                                changed = false;
+                            }
+                        } else {
+                            changed = game.slide(SlideDirection.values()[gen.nextInt(4)]);
+                        }
+                        if (changed) {
+                            seen.add(values(game));
+                        }
+                    }
+                    assertEquals(seen.size() - 1, game.getStepCount());
+                    journal.append(game);
+                    boards.add(seen);
+                }
+            }
+            List<MoveJournal.Entry> entries = MoveJournal.read(file);
+            assertEquals(boards.size(), entries.size());
+            for (int g = 0; g < entries.size(); g++) {
+                MoveJournal.Entry entry = entries.get(g);
+                List<int[]> seen = boards.get(g);
+                assertEquals(4 + g, entry.getHeight());
+                assertEquals(seen.size() - 1, entry.getStepCount());
+                for (int step = 0; step < seen.size(); step++) {
+                    assertArrayEquals("game " + g + " step " + step, seen.get(step), values(entry.replay(step)));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void replayedGameShallContinueWithSameTiles() throws IOException
+    {
+        Path file = Files.createTempFile("journal", ".bin");
+        Files.delete(file);
+        try {
+            JournaledGame game = new JournaledGame(42, 4, 4, 1 << 20);
+            SlideDirection[] dirs = SlideDirection.values();
+            for (int count = 0; count < 100; count++)
+                game.slide(dirs[count % 4]);
+            try (MoveJournal journal = new MoveJournal(file)) {
+                journal.append(game);
+            }
+            /* appending again keeps the earlier records */
+            try (MoveJournal journal = new MoveJournal(file)) {
+                journal.append(game);
+            }
+            List<MoveJournal.Entry> entries = MoveJournal.read(file);
+            assertEquals(2, entries.size());
+            NumberGameArrayList copy = entries.get(1).replay(game.getStepCount());
+            for (int count = 0; count < 100; count++) {
+                assertEquals(game.slide(dirs[count % 3]), copy.slide(dirs[count % 3]));
+                assertArrayEquals(values(game), values(copy));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static int[] values(PlayableGame game)
+    {
+        int[] values = new int[game.getHeight() * game.getWidth()];
+        game.copyValues(values);
+        return values;
+    }
+}
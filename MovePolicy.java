@@ -0,0 +1,15 @@
+package Project2;
+
+/**
+ * A strategy that plays moves on a game without any user interface,
+ * used by the headless runners and the automated players.
+ */
+public interface MovePolicy {
+    /**
+     * Pick a direction and slide the game once.
+     *
+     * @param game the game to move, its status is IN_PROGRESS
+     * @return false when no direction changes the board
+     */
+    public boolean playMove(PlayableGame game);
+}
@@ -0,0 +1,141 @@
+package Project2;
+
+import java.util.Arrays;
+
+/**
+ * What a single slide did to the board, so a front end can redraw only
+ * the cells it touched. A result is filled by
+ * NumberSlider.slide(SlideDirection, MoveResult) and can be reused for
+ * every move; its arrays only grow.
+ *
+ * Every tile that left its cell is listed once with the cell it came
+ * from, the cell it landed on and its value before the move. Two tiles
+ * that merged are both listed with the same target and flagged as merged,
+ * even when one of them stayed in place; the target then holds twice
+ * their value. Other tiles that did not move are not listed.
+ */
+public class MoveResult {
+    private boolean moved;
+    private int score;
+    private int count;
+    private int[] fromRow = new int[16];
+    private int[] fromColumn = new int[16];
+    private int[] toRow = new int[16];
+    private int[] toColumn = new int[16];
+    private int[] value = new int[16];
+    private boolean[] merged = new boolean[16];
+    private final Cell spawned = new Cell();
+
+    /**
+     * Forget the previous move
+     */
+    public void clear() {
+        moved = false;
+        score = 0;
+        count = 0;
+        spawned.setRow(0);
+        spawned.setColumn(0);
+        spawned.setValue(0);
+    }
+
+    /**
+     * @return true when the slide changed the board
+     */
+    public boolean isMoved() {
+        return moved;
+    }
+
+    /**
+     * @return the sum of the tiles created by merges
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the number of tiles listed
+     */
+    public int getTileCount() {
+        return count;
+    }
+
+    public int getFromRow(int tile) {
+        check(tile);
+        return fromRow[tile];
+    }
+
+    public int getFromColumn(int tile) {
+        check(tile);
+        return fromColumn[tile];
+    }
+
+    public int getToRow(int tile) {
+        check(tile);
+        return toRow[tile];
+    }
+
+    public int getToColumn(int tile) {
+        check(tile);
+        return toColumn[tile];
+    }
+
+    /**
+     * @param tile the index of a listed tile
+     * @return the value of the tile before it moved
+     */
+    public int getValue(int tile) {
+        check(tile);
+        return value[tile];
+    }
+
+    /**
+     * @param tile the index of a listed tile
+     * @return true when the tile merged with another one at its target
+     */
+    public boolean isMerged(int tile) {
+        check(tile);
+        return merged[tile];
+    }
+
+    /**
+     * @return the tile placed after the move, its value is zero when the
+     *  slide did not change the board. The same Cell is reused by every
+     *  move.
+     */
+    public Cell getSpawned() {
+        return spawned;
+    }
+
+    void addTile(int fromRow, int fromColumn, int toRow, int toColumn, int value, boolean merged) {
+        if (count == this.value.length) {
+            int capacity = count * 2;
+            this.fromRow = Arrays.copyOf(this.fromRow, capacity);
+            this.fromColumn = Arrays.copyOf(this.fromColumn, capacity);
+            this.toRow = Arrays.copyOf(this.toRow, capacity);
+            this.toColumn = Arrays.copyOf(this.toColumn, capacity);
+            this.value = Arrays.copyOf(this.value, capacity);
+            this.merged = Arrays.copyOf(this.merged, capacity);
+        }
+        this.fromRow[count] = fromRow;
+        this.fromColumn[count] = fromColumn;
+        this.toRow[count] = toRow;
+        this.toColumn[count] = toColumn;
+        this.value[count] = value;
+        this.merged[count] = merged;
+        count++;
+    }
+
+    void finish(int score, int spawnRow, int spawnColumn, int spawnValue) {
+        moved = true;
+        this.score = score;
+        spawned.setRow(spawnRow);
+        spawned.setColumn(spawnColumn);
+        spawned.setValue(spawnValue);
+    }
+
+    private void check(int tile) {
+        if (tile < 0 || tile >= count) {
+            throw new IndexOutOfBoundsException("Tile " + tile + " of " + count);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package Project2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A learned evaluator for the 4x4 board. An n-tuple network looks at a few
+ * fixed groups of cells; the four-bit codes of a group, packed together,
+ * index a table of weights, and the value of a board is the sum of the
+ * weights selected by every group. Each group is applied to the eight
+ * rotations and reflections of the board and shares its table between
+ * them, so symmetric boards get the same value.
+ *
+ * Weights are plain float arrays and update() writes them without any
+ * locking. Several trainer threads may update the same network at once;
+ * an update lost to a race is tolerated, as in hogwild training.
+ *
+ * A network is saved in a little-endian binary file: the magic number,
+ * the format version, the number of tuples, every tuple as its length
+ * followed by its cell indexes, then the raw weights of every tuple.
+ */
+public class NTupleNetwork implements MovePolicy {
+    public static final int SIZE = NumberGameBitBoard.SIZE;
+    public static final int MAX_TUPLE_LENGTH = 6;
+
+    /**
+     * Straight lines of four and squares of four: the outer and inner
+     * row, and the corner, edge and center squares. With symmetries they
+     * cover every row, column and square of the board.
+     */
+    public static final int[][] DEFAULT_TUPLES = {
+            {0, 1, 2, 3},
+            {4, 5, 6, 7},
+            {0, 1, 4, 5},
+            {1, 2, 5, 6},
+            {5, 6, 9, 10}
+    };
+
+    private static final int MAGIC = 0x4E545550;
+    private static final int VERSION = 1;
+    private static final int SYMMETRIES = 8;
+    private static final SlideDirection[] DIRECTIONS = SlideDirection.values();
+
+    private final int[][] tuples;
+    private final float[][] weights;
+
+    /**
+     * Create a network of DEFAULT_TUPLES with every weight zero
+     */
+    public NTupleNetwork() {
+        this(DEFAULT_TUPLES);
+    }
+
+    /**
+     * Create a network with every weight zero
+     * @param tuples the cell indexes, 4*row + column, of every tuple
+     * @throws IllegalArgumentException when there is no tuple, or a tuple
+     *  is empty, longer than MAX_TUPLE_LENGTH or holds a cell outside the
+     *  board
+     */
+    public NTupleNetwork(int[][] tuples) {
+        if (tuples.length == 0) {
+            throw new IllegalArgumentException("A network needs a tuple");
+        }
+        this.tuples = new int[tuples.length][];
+        weights = new float[tuples.length][];
+        for (int t = 0; t < tuples.length; t++) {
+            int[] cells = tuples[t];
+            if (cells.length == 0 || cells.length > MAX_TUPLE_LENGTH) {
+                throw new IllegalArgumentException("Invalid tuple length " + cells.length);
+            }
+            for (int cell : cells) {
+                if (cell < 0 || cell >= SIZE * SIZE) {
+                    throw new IllegalArgumentException("Invalid tuple cell " + cell);
+                }
+            }
+            this.tuples[t] = cells.clone();
+            weights[t] = new float[1 << (4 * cells.length)];
+        }
+    }
+
+    /**
+     * @param board a packed board
+     * @return the estimated sum of the merges still to come from the board
+     */
+    public float value(long board) {
+        float sum = 0;
+        for (int s = 0; s < SYMMETRIES; s++) {
+            for (int t = 0; t < tuples.length; t++) {
+                sum += weights[t][index(board, tuples[t])];
+            }
+            board = nextSymmetry(board, s);
+        }
+        return sum;
+    }
+
+    /**
+     * Add the same amount to every weight that makes up the value of the
+     * board
+     * @param board a packed board
+     * @param delta the change of every weight. The value of the board
+     *              changes by delta times getFeatureCount(), or more when
+     *              two symmetries select the same weight.
+     */
+    public void update(long board, float delta) {
+        for (int s = 0; s < SYMMETRIES; s++) {
+            for (int t = 0; t < tuples.length; t++) {
+                weights[t][index(board, tuples[t])] += delta;
+            }
+            board = nextSymmetry(board, s);
+        }
+    }
+
+    /**
+     * @return the number of weights summed by value()
+     */
+    public int getFeatureCount() {
+        return tuples.length * SYMMETRIES;
+    }
+
+    /**
+     * @return the number of tuples in the network
+     */
+    public int getTupleCount() {
+        return tuples.length;
+    }
+
+    /**
+     * @param board a packed board
+     * @return the direction with the highest merge score plus value of the
+     *  board it leaves, or null when no direction changes the board
+     */
+    public SlideDirection bestMove(long board) {
+        SlideDirection best = null;
+        float bestValue = -Float.MAX_VALUE;
+        for (SlideDirection dir : DIRECTIONS) {
+            long moved = NumberGameBitBoard.move(board, dir);
+            if (moved == board) {
+                continue;
+            }
+            float v = NumberGameBitBoard.moveScore(board, dir) + value(moved);
+            if (v > bestValue) {
+                bestValue = v;
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Slide the game in the direction with the best one move look-ahead.
+     *
+     * @param game a game on a 4x4 board
+     * @return false when no direction changes the board
+     * @throws IllegalArgumentException when the board is not 4x4 or a tile
+     *  can not be encoded
+     */
+    @Override
+    public boolean playMove(PlayableGame game) {
+        SlideDirection dir = bestMove(NumberGameBitBoard.pack(game));
+        return dir != null && game.slide(dir);
+    }
+
+    /**
+     * Write the network to a file. The file is written next to the
+     * target and moved in place, so an interrupted save leaves the
+     * previous checkpoint intact.
+     *
+     * @param path the file to write
+     * @throws IOException when the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        int header = 12;
+        for (int[] tuple : tuples) {
+            header += 4 + 4 * tuple.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(header, 1 << 16)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(tuples.length);
+        for (int[] tuple : tuples) {
+            buffer.putInt(tuple.length);
+            for (int cell : tuple) {
+                buffer.putInt(cell);
+            }
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (float[] table : weights) {
+                for (int k = 0; k < table.length; ) {
+                    int n = Math.min(table.length - k, buffer.remaining() / 4);
+                    buffer.asFloatBuffer().put(table, k, n);
+                    buffer.position(buffer.position() + 4 * n);
+                    k += n;
+                    if (!buffer.hasRemaining() || k == table.length) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a network written by save()
+     *
+     * @param path the file to read
+     * @return the network held by the file
+     * @throws IOException when the file can't be read or is not a network
+     */
+    public static NTupleNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(12);
+            readFully(channel, buffer);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not an n-tuple network: " + path);
+            }
+            int count = buffer.getInt();
+            if (count < 0 || count > 1024) {
+                throw new IOException("Corrupt n-tuple network: " + path);
+            }
+            int[][] tuples = new int[count][];
+            for (int t = 0; t < count; t++) {
+                buffer.clear().limit(4);
+                readFully(channel, buffer);
+                int length = buffer.getInt();
+                if (length <= 0 || length > MAX_TUPLE_LENGTH) {
+                    throw new IOException("Corrupt n-tuple network: " + path);
+                }
+                buffer.clear().limit(4 * length);
+                readFully(channel, buffer);
+                tuples[t] = new int[length];
+                buffer.asIntBuffer().get(tuples[t]);
+            }
+            NTupleNetwork network;
+            try {
+                network = new NTupleNetwork(tuples);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt n-tuple network: " + path, e);
+            }
+            for (float[] table : network.weights) {
+                for (int k = 0; k < table.length; ) {
+                    int n = Math.min(table.length - k, buffer.capacity() / 4);
+                    buffer.clear().limit(4 * n);
+                    readFully(channel, buffer);
+                    buffer.asFloatBuffer().get(table, k, n);
+                    k += n;
+                }
+            }
+            return network;
+        }
+    }
+
+    /**
+     * Fill the buffer up to its limit and flip it for reading
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Truncated n-tuple network");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static int index(long board, int[] tuple) {
+        int index = 0;
+        for (int k = 0; k < tuple.length; k++) {
+            index |= (int) (board >>> (4 * tuple[k]) & 0xF) << (4 * k);
+        }
+        return index;
+    }
+
+    /**
+     * Mirroring and transposing in turn walks through all eight
+     * symmetries of the square before coming back to the first board
+     */
+    private static long nextSymmetry(long board, int step) {
+        return (step & 1) == 0 ? NumberGameBitBoard.mirror(board) : NumberGameBitBoard.transpose(board);
+    }
+}
@@ -0,0 +1,92 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class NTupleNetworkTester {
+    private static final long BOARD = 0x0000_0120_0341_2315L;
+
+    @Test
+    public void symmetricBoardsShallHaveSameValue()
+    {
+        NTupleNetwork network = new NTupleNetwork();
+        network.update(BOARD, 0.5f);
+        network.update(0x1234_0000_0000_0000L, -0.25f);
+        float value = network.value(BOARD);
+        assertNotEquals(0f, value, 0f);
+        assertEquals(value, network.value(NumberGameBitBoard.mirror(BOARD)), 1e-3f);
+        assertEquals(value, network.value(NumberGameBitBoard.transpose(BOARD)), 1e-3f);
+        assertEquals(value, network.value(NumberGameBitBoard.transpose(NumberGameBitBoard.mirror(BOARD))), 1e-3f);
+    }
+
+    @Test
+    public void updateShallMoveValueByEveryFeature()
+    {
+        NTupleNetwork network = new NTupleNetwork();
+        network.update(BOARD, 1f);
+        assertTrue(network.value(BOARD) >= network.getFeatureCount());
+        network.update(BOARD, -1f);
+        assertEquals(0f, network.value(BOARD), 1e-3f);
+    }
+
+    @Test
+    public void mirrorShallReverseRows()
+    {
+        assertEquals(0x0000_0210_1430_5132L, NumberGameBitBoard.mirror(BOARD));
+        assertEquals(BOARD, NumberGameBitBoard.mirror(NumberGameBitBoard.mirror(BOARD)));
+    }
+
+    @Test
+    public void savedNetworkShallLoadIdentical() throws IOException
+    {
+        NTupleNetwork network = new NTupleNetwork(new int[][] {{0, 1, 2}, {5, 6, 9, 10, 13}});
+        SplittableRandom random = new SplittableRandom(1);
+        for (int k = 0; k < 1000; k++) {
+            network.update(random.nextLong(), (float) random.nextDouble());
+        }
+        Path file = Files.createTempFile("ntuple", ".bin");
+        try {
+            network.save(file);
+            NTupleNetwork copy = NTupleNetwork.load(file);
+            assertEquals(network.getTupleCount(), copy.getTupleCount());
+            for (int k = 0; k < 1000; k++) {
+                long board = random.nextLong();
+                assertEquals(network.value(board), copy.value(board), 0f);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void loadShallRefuseOtherFiles() throws IOException
+    {
+        Path file = Files.createTempFile("ntuple", ".bin");
+        try {
+            Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+            NTupleNetwork.load(file);
+            fail("a file without the magic number should be refused");
+        } catch (IOException expected) {
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void trainingShallImproveScore()
+    {
+        NTupleNetwork network = new NTupleNetwork();
+        NTupleTrainer trainer = new NTupleTrainer(network, 0.1f, 2);
+        double first = trainer.train(200, new SplittableRandom(1)).getMeanScore();
+        trainer.train(3000, new SplittableRandom(2));
+        NTupleTrainer.Stats last = trainer.train(200, new SplittableRandom(3));
+        assertEquals(200, last.getGames());
+        assertTrue(last.getMeanScore() > first);
+    }
+}
@@ -0,0 +1,244 @@
+package Project2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Trains an NTupleNetwork by temporal-difference learning over self-play.
+ * Every move is chosen greedily by the network, and the value of the board
+ * left by a move (before its random tile) is pulled towards the merge
+ * score of the next move plus the value of the board that move leaves.
+ * A lost game pulls its last value towards zero.
+ *
+ * Games are played on NumberGameBitBoard engines through slide(), which
+ * places the random tile. They are split across a fork-join pool like the
+ * games of SimulationRunner, and all the threads update the shared
+ * weights without locking. Training runs in rounds and the network is
+ * saved after every round.
+ *
+ * Usage: NTupleTrainer [--games N] [--round N] [--alpha A] [--threads T]
+ *        [--seed S] [--load FILE] [--save FILE]
+ */
+public class NTupleTrainer {
+    private static final SlideDirection[] DIRECTIONS = SlideDirection.values();
+
+    private final NTupleNetwork network;
+    private final float alpha;
+    private final int threads;
+
+    /**
+     * Totals of a batch of training games, merged up the fork-join tree
+     */
+    public static class Stats {
+        private long games;
+        private long moves;
+        private long score;
+        private final long[] highestCounts = new long[NumberGameBitBoard.MAX_CODE + 1];
+
+        private Stats merge(Stats other) {
+            games += other.games;
+            moves += other.moves;
+            score += other.score;
+            for (int k = 0; k < highestCounts.length; k++) {
+                highestCounts[k] += other.highestCounts[k];
+            }
+            return this;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        public double getMeanScore() {
+            return games == 0 ? 0 : (double) score / games;
+        }
+
+        /**
+         * @param tile a power of two
+         * @return the number of games that reached at least that tile
+         */
+        public long getReachedCount(int tile) {
+            long n = 0;
+            for (int c = NumberGameBitBoard.encode(tile); c < highestCounts.length; c++) {
+                n += highestCounts[c];
+            }
+            return n;
+        }
+    }
+
+    /**
+     * @param network the network to train, updated in place
+     * @param alpha the learning rate of a board value, shared between the
+     *              weights that make it up
+     * @param threads the number of threads playing games
+     * @throws IllegalArgumentException when alpha or threads is not positive
+     */
+    public NTupleTrainer(NTupleNetwork network, float alpha, int threads) {
+        if (network == null || !(alpha > 0) || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.network = network;
+        this.alpha = alpha;
+        this.threads = threads;
+    }
+
+    private class TrainingBatch extends RecursiveTask<Stats> {
+        private static final long serialVersionUID = 1L;
+
+        private final int count;
+        private final SplittableRandom random;
+        private final int threshold;
+
+        TrainingBatch(int count, SplittableRandom random, int threshold) {
+            this.count = count;
+            this.random = random;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (count > threshold) {
+                TrainingBatch left = new TrainingBatch(count / 2, random.split(), threshold);
+                TrainingBatch right = new TrainingBatch(count - count / 2, random.split(), threshold);
+                left.fork();
+                return right.compute().merge(left.join());
+            }
+            NumberGameBitBoard game = new NumberGameBitBoard(random.split());
+            game.setUndoDepth(0);
+            // the goal is out of reach so games run until they are lost
+            game.resizeBoard(NumberGameBitBoard.SIZE, NumberGameBitBoard.SIZE, 1 << (NumberGameBitBoard.MAX_CODE - 1));
+            Stats stats = new Stats();
+            for (int k = 0; k < count; k++) {
+                game.reset();
+                playGame(game, stats);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Play one game to the end, learning from every move
+     */
+    private void playGame(NumberGameBitBoard game, Stats stats) {
+        float step = alpha / network.getFeatureCount();
+        long board = game.getBoard();
+        long after = 0;
+        boolean learning = false;
+        long score = 0;
+        while (true) {
+            SlideDirection dir = network.bestMove(board);
+            if (dir == null) {
+                break;
+            }
+            long moved = NumberGameBitBoard.move(board, dir);
+            int reward = NumberGameBitBoard.moveScore(board, dir);
+            if (learning) {
+                network.update(after, step * (reward + network.value(moved) - network.value(after)));
+            }
+            after = moved;
+            learning = true;
+            score += reward;
+            stats.moves++;
+            game.slide(dir);
+            board = game.getBoard();
+        }
+        if (learning) {
+            network.update(after, -step * network.value(after));
+        }
+        stats.games++;
+        stats.score += score;
+        stats.highestCounts[NumberGameBitBoard.encode(game.getHighest())]++;
+    }
+
+    /**
+     * Play and learn from a number of games
+     * @param games the number of games to play
+     * @param random the source of every random tile, split between the
+     *               threads in a fixed pattern
+     * @return the totals of the games played
+     */
+    public Stats train(int games, SplittableRandom random) {
+        int threshold = Math.max(1, games / (threads * 8));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new TrainingBatch(games, random, threshold));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] arg) throws IOException {
+        int games = 100000;
+        int round = 10000;
+        float alpha = 0.1f;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        Path load = null;
+        Path save = Paths.get("ntuple.bin");
+        try {
+            if (arg.length % 2 != 0) {
+                throw new IllegalArgumentException("Missing value for " + arg[arg.length - 1]);
+            }
+            for (int k = 0; k < arg.length; k += 2) {
+                String value = arg[k + 1];
+                switch (arg[k]) {
+                    case "--games":
+                        games = Integer.parseInt(value);
+                        break;
+                    case "--round":
+                        round = Integer.parseInt(value);
+                        break;
+                    case "--alpha":
+                        alpha = Float.parseFloat(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--load":
+                        load = Paths.get(value);
+                        break;
+                    case "--save":
+                        save = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg[k]);
+                }
+            }
+            if (games <= 0 || round <= 0) {
+                throw new IllegalArgumentException("games and round must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: NTupleTrainer [--games N] [--round N] [--alpha A] [--threads T]"
+                    + " [--seed S] [--load FILE] [--save FILE]");
+            System.exit(1);
+        }
+        NTupleNetwork network = load != null && Files.exists(load) ? NTupleNetwork.load(load) : new NTupleNetwork();
+        NTupleTrainer trainer = new NTupleTrainer(network, alpha, threads);
+        SplittableRandom random = new SplittableRandom(seed);
+        System.out.printf("training %d games, alpha %s, %d threads, seed %d%n", games, alpha, threads, seed);
+        for (int played = 0; played < games; ) {
+            int n = Math.min(round, games - played);
+            long start = System.nanoTime();
+            Stats stats = trainer.train(n, random.split());
+            double seconds = (System.nanoTime() - start) / 1e9;
+            played += n;
+            network.save(save);
+            System.out.printf("%d games: mean score %.0f, 2048 %.1f%%, 4096 %.1f%%, %.0f games/s, %.0f moves/s%n",
+                    played, stats.getMeanScore(), 100.0 * stats.getReachedCount(2048) / n,
+                    100.0 * stats.getReachedCount(4096) / n, n / seconds, stats.getMoves() / seconds);
+        }
+    }
+}
@@ -1,13 +1,100 @@
 package Project2;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
+/**
+ * The board is kept row-major in a flat int array, cell (row, col) at
+ * index row*width + col. A move is computed into a reused scratch array
+ * and only the cells that differ are written back through putCell().
+ *
+ * Undo keeps a delta log instead of board snapshots: every write records
+ * the cell index and its previous value in undoLog, and undoFrames marks
+ * where each move starts in that log. Undo replays the newest frame
+ * backwards, so memory per move grows with the tiles it touched rather
+ * than with the board area.
+ *
+ * Both arrays are ring buffers with a power of two length. When an undo
+ * depth is set the oldest frame is dropped before a new one would exceed
+ * it, so the history of an arbitrarily long game stays bounded.
+ *
+ * Every write also updates a summary of the board: tileCounts counts the
+ * tiles of each exponent code (code 0 counts the empty cells) and
+ * equalPairs counts the neighbouring cells holding the same tile. This
+ * makes getStatus() and getHighest() constant-time on any board size.
+ * The empty cells are also indexed by the emptyCells bitset, one bit per
+ * cell, so a random tile is placed by selecting the k-th set bit.
+ *
+ * A whole game can be saved in a little-endian binary form: the magic
+ * number and format version; the height, width, winning value, move count
+ * and undo depth; the state of the tile generator, when it is a
+ * SplitMixRandom; one exponent code byte per cell; then the undo history
+ * as the frame starts followed by the delta log, every entry a cell index
+ * and the code of its previous value.
+ */
 public class NumberGameArrayList implements NumberSlider {
-    private int [][] grid;
+    private static final int SAVE_MAGIC = 0x4E47414C;
+    private static final int SAVE_VERSION = 1;
+    /** The fixed part of a saved game: magic to generator, and the two undo counts */
+    private static final int SAVE_HEADER = 45;
+    private int [] grid;
+    private int [] scratch;
     private int height;
     private int width;
     private int winningValue;
-    private ArrayList< int [][]> undoList;
+    private int [] undoLog;
+    private int undoLogHead;
+    private int undoLogSize;
+    private int [] undoFrames;
+    private int undoFrameHead;
+    private int undoSize;
+    private int undoDepth = Integer.MAX_VALUE;
+    private int moveCount;
+    private int [] tileCounts = new int[33];
+    private int equalPairs;
+    private long [] emptyCells;
+    private final RandomGenerator random;
+
+    /**
+     * Create a game that places tiles with an unseeded generator
+     */
+    public NumberGameArrayList() {
+        this(new SplitMixRandom());
+    }
+
+    /**
+     * Create a game whose tiles are reproducible from a seed: the same
+     * seed and the same moves always give the same boards
+     *
+     * @param seed the seed of the tile generator
+     */
+    public NumberGameArrayList(long seed) {
+        this(new SplitMixRandom(seed));
+    }
+
+    /**
+     * Create a game that draws every random tile from the given generator.
+     * The generator is used without synchronization, give each game used
+     * by a separate thread its own generator.
+     *
+     * @param random the source of the tile positions and values
+     */
+    public NumberGameArrayList(RandomGenerator random) {
+        if (random == null) {
+            throw new IllegalArgumentException();
+        }
+        this.random = random;
+    }
 
     /**
      * Reset the game logic to handle a board of a given dimension
@@ -22,11 +109,16 @@ public class NumberGameArrayList implements NumberSlider {
     @Override
     public void resizeBoard(int height, int width, int winningValue) {
         if(winningValue > 0 && height>0 && width>0 && (winningValue & winningValue-1) == 0) {
-            this.grid = new int[height][width];
+            this.grid = new int[height*width];
+            this.scratch = new int[height*width];
+            this.emptyCells = new long[(height*width + 63) >>> 6];
             this.height = height;
             this.width = width;
             this.winningValue = winningValue;
-            undoList= new ArrayList<>();
+            undoLog = new int[64];
+            undoFrames = new int[undoFrameCapacity()];
+            clearUndo();
+            recountSummary();
         }else{
             throw new IllegalArgumentException();
         }
@@ -38,14 +130,11 @@ public class NumberGameArrayList implements NumberSlider {
      */
     @Override
     public void reset() {
-        for(int rows = 0; rows < height; rows++) {
-            for (int columns = 0; columns < width; columns++) {
-                grid[rows][columns] = 0;
-            }
-        }
+        clearUndo();
+        Arrays.fill(grid, 0);
+        recountSummary();
         placeRandomValue();
         placeRandomValue();
-        undoList.clear();
     }
 
     /**
@@ -56,12 +145,22 @@ public class NumberGameArrayList implements NumberSlider {
      * internal array may get corrupted by the array used in the JUnit
      * test file. This method is mainly used by the JUnit tester.
      * @param ref
+     * @throws IllegalArgumentException when a value is neither zero nor a
+     *  positive power of two
      */
     @Override
     public void setValues(int[][] ref) {
         for (int rows = 0; rows < height; rows++){
             for(int columns = 0; columns < width; columns++){
-                grid[rows][columns] = ref[rows][columns];
+                int value = ref[rows][columns];
+                if (value < 0 || (value & value - 1) != 0) {
+                    throw new IllegalArgumentException();
+                }
+            }
+        }
+        for (int rows = 0; rows < height; rows++){
+            for(int columns = 0; columns < width; columns++){
+                putCell(rows*width + columns, ref[rows][columns]);
             }
         }
     }
@@ -76,25 +175,48 @@ public class NumberGameArrayList implements NumberSlider {
      */
     @Override
     public Cell placeRandomValue() {
-        ArrayList<int[]>empty = new ArrayList<>();
-        for(int i =0;i<height;i++){
-            for(int j =0; j<width;j++){
-                if(grid[i][j]==0){
-                    int[] a = {i,j};
-                    empty.add(a);
+        int index = spawnTile();
+        return new Cell(index / width, index % width, grid[index]);
+    }
+
+    /**
+     * Place a 2 or a 4 on a random empty cell without building any list
+     *
+     * @return the flat index of the new tile
+     * @throws IllegalStateException when the board has no empty cell
+     */
+    private int spawnTile() {
+        int empty = tileCounts[0];
+        if (empty == 0) {
+            throw new IllegalStateException();
+        }
+        int randomPower = 1 + random.nextInt(2);
+        int i = selectEmptyCell(random.nextInt(empty));
+        putCell(i, 1 << randomPower);
+        return i;
+    }
+
+    /**
+     * Find the k-th empty cell in row-major order by skipping whole words
+     * of the emptyCells bitset with their popcount
+     *
+     * @param k the rank of the empty cell, between 0 and the number of
+     *          empty cells minus one
+     * @return the flat index of that cell
+     */
+    private int selectEmptyCell(int k) {
+        for (int w = 0; w < emptyCells.length; w++) {
+            long word = emptyCells[w];
+            int count = Long.bitCount(word);
+            if (k < count) {
+                for (int j = 0; j < k; j++) {
+                    word &= word - 1;
                 }
+                return (w << 6) + Long.numberOfTrailingZeros(word);
             }
+            k -= count;
         }
-        if(empty.size()>0){
-            int randomPower = (int)(1+(Math.random()*2));
-            int randomNumber = (int)Math.pow(2,randomPower);
-            int randomIndex =(int)(Math.random()*empty.size());
-            int [] temp = empty.get(randomIndex);
-            grid[temp[0]][temp[1]]=randomNumber;
-            return new Cell (temp[0],temp[1],randomNumber);
-        }else{
-            throw new IllegalStateException();
-        }
+        throw new IllegalStateException();
     }
 
     /**
@@ -104,345 +226,599 @@ public class NumberGameArrayList implements NumberSlider {
      */
     @Override
     public boolean slide(SlideDirection dir) {
-        ArrayList<Integer> listTemp = new ArrayList<>();
-        for (int row = 0; row < this.height; row++){
-            for( int col = 0; col < this.width; col++){
-                listTemp.add(grid[row][col]);
+        return slide(dir, null);
+    }
+
+    /**
+     * Slide all the tiles in the board in the requested direction and
+     * describe what moved
+     * @param dir move direction of the tiles
+     * @param result cleared and filled with the tiles that moved, the
+     *               score and the spawned tile, or null
+     *
+     * @return true when the board changes
+     */
+    @Override
+    public boolean slide(SlideDirection dir, MoveResult result) {
+        if (result != null) {
+            result.clear();
+        }
+        System.arraycopy(grid, 0, scratch, 0, grid.length);
+        int score = slideBoard(scratch, height, width, dir, result);
+
+        int first = Arrays.mismatch(grid, scratch);
+        boolean flag = first >= 0;
+
+        if(flag==true){
+            beginUndoFrame();
+            commitMove(first);
+            moveCount++;
+            int index = spawnTile();
+            if (result != null) {
+                result.finish(score, index / width, index % width, grid[index]);
             }
         }
+        return flag;
+    }
 
-        if( dir.equals(SlideDirection.UP)){
-            slideUp(listTemp);
+    /**
+     * Copy the moved board from the scratch array into the grid, logging
+     * the previous value of every changed cell. A move already walks the
+     * whole board, so the summary is rebuilt in one sequential pass here
+     * instead of being updated neighbour by neighbour for each cell.
+     *
+     * @param first index of the first cell that differs
+     */
+    private void commitMove(int first) {
+        boolean logging = undoSize > 0;
+        if (logging) {
+            ensureUndoLog(2 * (grid.length - first));
         }
-        if( dir.equals(SlideDirection.DOWN)){
-            slideDown(listTemp);
+        int[] log = undoLog;
+        int mask = log.length - 1;
+        int end = undoLogHead + undoLogSize;
+        for (int i = first; i < grid.length; i++) {
+            int value = scratch[i];
+            if (grid[i] != value) {
+                if (logging) {
+                    log[end & mask] = i;
+                    log[(end + 1) & mask] = grid[i];
+                    end += 2;
+                }
+                grid[i] = value;
+            }
         }
-        if( dir.equals(SlideDirection.RIGHT)){
-            slideRight(listTemp);
+        if (logging) {
+            undoLogSize = end - undoLogHead;
         }
-        if( dir.equals(SlideDirection.LEFT)){
-            slideLeft(listTemp);
+        recountSummary();
+    }
+
+    /**
+     * Write one cell of the board. While an undo frame is open the
+     * previous value is appended to the delta log, so changes made after
+     * a move (placeRandomValue, setValues) are undone together with it.
+     *
+     * @param index flat index of the cell
+     * @param value the new value of the cell
+     */
+    private void putCell(int index, int value) {
+        if (undoSize > 0) {
+            ensureUndoLog(2);
+            int mask = undoLog.length - 1;
+            int end = undoLogHead + undoLogSize;
+            undoLog[end & mask] = index;
+            undoLog[(end + 1) & mask] = grid[index];
+            undoLogSize += 2;
         }
+        setCell(index, value);
+    }
 
-        boolean flag = false;
+    /**
+     * Write one cell of the board and keep the board summary up to date
+     *
+     * @param index flat index of the cell
+     * @param value the new value of the cell
+     */
+    private void setCell(int index, int value) {
+        int old = grid[index];
+        if (old == value) {
+            return;
+        }
+        equalPairs -= countEqualNeighbours(index, old);
+        grid[index] = value;
+        equalPairs += countEqualNeighbours(index, value);
+        tileCounts[code(old)]--;
+        tileCounts[code(value)]++;
+        if (old == 0) {
+            emptyCells[index >>> 6] &= ~(1L << index);
+        } else if (value == 0) {
+            emptyCells[index >>> 6] |= 1L << index;
+        }
+    }
 
-        for (int row = 0; row < this.height; row++){
-            for(int col = 0; col < this.width; col++){
-                if(grid[row][col] != listTemp.get((row*width)+ col)){
-                    flag = true;
-                    break;
-                }
-            }
+    /**
+     * @return the number of cells next to index holding the tile value
+     */
+    private int countEqualNeighbours(int index, int value) {
+        if (value == 0) {
+            return 0;
+        }
+        int count = 0;
+        int col = index % width;
+        if (col > 0 && grid[index - 1] == value) {
+            count++;
         }
+        if (col < width - 1 && grid[index + 1] == value) {
+            count++;
+        }
+        if (index >= width && grid[index - width] == value) {
+            count++;
+        }
+        if (index + width < grid.length && grid[index + width] == value) {
+            count++;
+        }
+        return count;
+    }
 
-        if(flag==true){
-            int[][] a = new int[height][width];
-            for(int i=0;i<height;i++){
-                for(int j=0;j<width;j++){
-                    a[i][j]=grid[i][j];
+    /**
+     * Rebuild the board summary after the grid was written directly
+     */
+    private void recountSummary() {
+        Arrays.fill(tileCounts, 0);
+        Arrays.fill(emptyCells, 0);
+        int pairs = 0;
+        for (int row = 0, i = 0; row < height; row++) {
+            for (int col = 0; col < width; col++, i++) {
+                int value = grid[i];
+                if (value == 0) {
+                    tileCounts[0]++;
+                    emptyCells[i >>> 6] |= 1L << i;
+                    continue;
                 }
-            }
-            undoList.add(a);
-            for (int row = 0; row < this.height; row++){
-                for(int col = 0; col < this.width; col++){
-                    grid[row][col] = listTemp.get((row*width)+col);
+                tileCounts[Integer.numberOfTrailingZeros(value) + 1]++;
+                // count each pair once, from its right or lower cell
+                if (col > 0 && grid[i - 1] == value) {
+                    pairs++;
+                }
+                if (row > 0 && grid[i - width] == value) {
+                    pairs++;
                 }
             }
-            placeRandomValue();
         }
-        return flag;
+        equalPairs = pairs;
     }
 
     /**
-     * Return the current state of the game
-     * @return one of the possible values of GameStatus enum
+     * @param value zero or a power of two
+     * @return 0 for an empty cell, log2(value) + 1 for a tile
      */
-    @Override
-    public ArrayList<Cell> getNonEmptyTiles() {
-        ArrayList<Cell> list = new ArrayList<Cell>();
-        for(int i=0;i<height;i++){
-            for(int j=0;j<width;j++){
-                if(grid[i][j]!=0){
-                list.add(new Cell(i,j,grid[i][j]));}
-            }
+    private static int code(int value) {
+        return value == 0 ? 0 : Integer.numberOfTrailingZeros(value) + 1;
+    }
+
+    /**
+     * Start recording a new move in the delta log, dropping the oldest
+     * move when the undo depth is reached
+     */
+    private void beginUndoFrame() {
+        if (undoDepth == 0) {
+            return;
         }
-        return list;
+        if (undoSize == undoDepth) {
+            dropOldestUndoFrame();
+        }
+        if (undoSize == undoFrames.length) {
+            resizeUndoFrames(undoFrames.length * 2);
+        }
+        undoFrames[(undoFrameHead + undoSize) & (undoFrames.length - 1)] =
+                (undoLogHead + undoLogSize) & (undoLog.length - 1);
+        undoSize++;
+    }
+
+    private void dropOldestUndoFrame() {
+        undoFrameHead = (undoFrameHead + 1) & (undoFrames.length - 1);
+        undoSize--;
+        int mask = undoLog.length - 1;
+        int newHead = undoSize > 0 ? undoFrames[undoFrameHead] : (undoLogHead + undoLogSize) & mask;
+        undoLogSize -= (newHead - undoLogHead) & mask;
+        undoLogHead = newHead;
     }
 
     /**
-     * Return the current state of the game
-     * @return one of the possible values of GameStatus enum
+     * Grow the delta log ring so it can take extra more entries. One slot
+     * always stays free so a full ring is never mistaken for an empty one.
      */
-    @Override
-    public GameStatus getStatus() {
-        // return USER_WON if the value in grid reach the winningValue
-        for(int i = 0; i < grid.length; i++){
-            for(int j = 0; j < grid[i].length; j++){
-                if(grid[i][j] == this.winningValue) {
-                    return GameStatus.USER_WON;
-                }
-            }
+    private void ensureUndoLog(int extra) {
+        int capacity = undoLog.length;
+        while (undoLogSize + extra >= capacity) {
+            capacity *= 2;
         }
+        if (capacity != undoLog.length) {
+            resizeUndoLog(capacity);
+        }
+    }
 
-        // return IN_PROGRESS if there is still an empty tiles
-        for(int i = 0; i < grid.length; i++){
-            for(int j = 0; j < grid[i].length; j++){
-                if(grid[i][j] == 0){
-                    return GameStatus.IN_PROGRESS;
-                }
-            }
+    private void resizeUndoLog(int capacity) {
+        int[] temp = new int[capacity];
+        int mask = undoLog.length - 1;
+        for (int k = 0; k < undoLogSize; k++) {
+            temp[k] = undoLog[(undoLogHead + k) & mask];
         }
+        // frames hold physical offsets, rebase them on the unwrapped log
+        int frameMask = undoFrames.length - 1;
+        for (int k = 0; k < undoSize; k++) {
+            int f = (undoFrameHead + k) & frameMask;
+            undoFrames[f] = (undoFrames[f] - undoLogHead) & mask;
+        }
+        undoLog = temp;
+        undoLogHead = 0;
+    }
 
-        // return IN_PROGRESS if 2 titles of the same value is next to each other in vertical
-        for(int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid[i].length-1; j++) {
-                if(grid[i][j] == grid[i][j+1]){
-                    return GameStatus.IN_PROGRESS;
-                }
-            }
+    private void resizeUndoFrames(int capacity) {
+        int[] temp = new int[capacity];
+        for (int k = 0; k < undoSize; k++) {
+            temp[k] = undoFrames[(undoFrameHead + k) & (undoFrames.length - 1)];
         }
+        undoFrames = temp;
+        undoFrameHead = 0;
+    }
 
-        // return IN_PROGRESS if 2 titles of the same value is next to each other in horizontal
-        for(int i = 0; i < grid[0].length; i++){
-            for (int j = 0; j < grid.length-1; j++){
-                if(grid[j][i] == grid[j+1][i]){
-                    return GameStatus.IN_PROGRESS;
-                }
-            }
+    /**
+     * @return the frame ring length preallocated for the undo depth, deep
+     *  or unlimited histories start small and grow on demand
+     */
+    private int undoFrameCapacity() {
+        if (undoDepth <= 16 || undoDepth > (1 << 16)) {
+            return 16;
         }
+        return Integer.highestOneBit(undoDepth - 1) << 1;
+    }
 
-        // return .USER_LOST if it doesn't match any cases above
-        return GameStatus.USER_LOST;
+    private void clearUndo() {
+        undoLogHead = 0;
+        undoLogSize = 0;
+        undoFrameHead = 0;
+        undoSize = 0;
+        moveCount = 0;
     }
 
     /**
-     * Undo the most recent action, i.e. restore the board to its previous
-     * state. Calling this method multiple times will ultimately restore
-     * the game to the very first initial state of the board holding two
-     * random values. Further attempt to undo beyond this state will throw
-     * an IllegalStateException.
+     * Slide every line of the board in place. Each line is described by
+     * the index of the cell its tiles move towards, the stride to the
+     * next cell of the line and its length, so all four directions share
+     * the same kernels. Short lines go through the precomputed
+     * RowTransitionTable and fall back to slideLine() when a tile does
+     * not fit in four bits.
      *
-     * @throws IllegalStateException when undo is not possible
+     * @param cells a row-major board
+     * @param height the number of rows in the board
+     * @param width the number of columns in the board
+     * @param dir move direction of the tiles
+     * @return the sum of the tiles created by merges
      */
-   
-        @Override
-        public void undo() {
-            //create temp array to hold last move
-            int[][] temp = new int[this.height][this.width];
-            if(undoList.size()-1<0){
-                throw new IllegalStateException();
-            }
-            //copy last move to board
-            temp = undoList.get((undoList.size())-1);
-            for(int i=0;i<temp.length;i++){
-                for(int j=0;j<temp[i].length;j++){
-                    grid[i][j]=temp[i][j];
-                }
-            }
-            //remove last move
-            undoList.remove(undoList.size() -1);
-        }
-    
+    public static int slideBoard(int[] cells, int height, int width, SlideDirection dir) {
+        return slideBoard(cells, height, width, dir, null);
+    }
 
     /**
-     * slide the board up
+     * Slide every line of the board in place, listing every tile that
+     * moves or merges in the result when there is one. Tracked lines
+     * always go through slideLineTracked().
+     *
+     * @param cells a row-major board
+     * @param height the number of rows in the board
+     * @param width the number of columns in the board
+     * @param dir move direction of the tiles
+     * @param result receives the tiles that move, or null
+     * @return the sum of the tiles created by merges
      */
-    public void slideUp(ArrayList<Integer> listTemp){
-        // move all the tiles with value up
-        for(int col = 0; col < this.width; col++){
-            int num = 0;
-            for(int row = 0; row < this.height; row++){
-                if(listTemp.get((row*width)+col) != 0) {
-                    listTemp.set(((num * width) + col), listTemp.get((row * width) + col));
-                    if (num != row) {
-                        listTemp.set(((row * width) + col), 0);
-                    }
-                    num++;
-                }
-            }
+    public static int slideBoard(int[] cells, int height, int width, SlideDirection dir, MoveResult result) {
+        boolean horizontal = dir == SlideDirection.LEFT || dir == SlideDirection.RIGHT;
+        int lines = horizontal ? height : width;
+        int length = horizontal ? width : height;
+        int lineStep = horizontal ? width : 1;
+        int first;
+        int stride;
+        switch (dir) {
+            case LEFT:
+                first = 0;
+                stride = 1;
+                break;
+            case RIGHT:
+                first = width - 1;
+                stride = -1;
+                break;
+            case UP:
+                first = 0;
+                stride = width;
+                break;
+            default:
+                first = (height - 1) * width;
+                stride = -width;
+                break;
         }
-
-        for(int col = 0; col < width; col++){
-            for(int row = 0; row < height-1; row++) {
-                if (listTemp.get((row * width) + col).equals(listTemp.get((row + 1) * width + col))) {
-                    listTemp.set(((row * width) + col), listTemp.get((row * width) + col)*2);
-                    listTemp.set((((row+1) * width) + col), 0);
-                }
+        RowTransitionTable table = length <= RowTransitionTable.MAX_LENGTH && result == null
+                ? RowTransitionTable.forLength(length) : null;
+        int score = 0;
+        for (int line = 0; line < lines; line++) {
+            int start = first + line * lineStep;
+            if (result != null) {
+                score += slideLineTracked(cells, start, stride, length, width, result);
+                continue;
             }
+            int gained = table == null ? -1 : slideLineByTable(table, cells, start, stride, length);
+            score += gained >= 0 ? gained : slideLine(cells, start, stride, length);
         }
+        return score;
+    }
 
-        for(int col = 0; col < this.width; col++){
-            int num = 0;
-            for(int row = 0; row < this.height; row++){
-                if(listTemp.get((row*width)+col) != 0) {
-                    listTemp.set(((num * width) + col), listTemp.get((row * width) + col));
-                    if (num != row) {
-                        listTemp.set(((row * width) + col), 0);
-                    }
-                    num++;
+    /**
+     * Slide and merge one line of tiles towards its first cell in a single
+     * pass. Tiles are read in line order and written back at or behind
+     * the read position, so the line is updated in place.
+     *
+     * @param cells the board holding the line
+     * @param start index of the cell the tiles move towards
+     * @param stride distance between two consecutive cells of the line,
+     *               negative to walk a row or column backwards
+     * @param length number of cells in the line
+     * @return the sum of the tiles created by merges
+     */
+    public static int slideLine(int[] cells, int start, int stride, int length) {
+        int out = start;
+        int pending = 0;
+        int score = 0;
+        for (int k = 0, in = start; k < length; k++, in += stride) {
+            int value = cells[in];
+            if (value == 0) {
+                continue;
+            }
+            cells[in] = 0;
+            if (value == pending) {
+                // merge with the waiting tile, the result can't merge again
+                cells[out] = value * 2;
+                score += value * 2;
+                out += stride;
+                pending = 0;
+            } else {
+                if (pending != 0) {
+                    cells[out] = pending;
+                    out += stride;
                 }
+                pending = value;
             }
         }
-
+        if (pending != 0) {
+            cells[out] = pending;
+        }
+        return score;
     }
 
     /**
-     * slide the board down
+     * The same pass as slideLine(), also recording in the result where
+     * every tile of the line goes
+     *
+     * @param width the number of columns of the board, to turn indexes
+     *              into rows and columns
+     * @return the sum of the tiles created by merges
      */
-    public void slideDown(ArrayList<Integer> listTemp){
-        // move all the tiles with value down
-        for(int col = 0; col < this.width ; col++){
-            int num = height-1;
-            for(int row = height-1; row >= 0; row--){
-                if(listTemp.get((row*width)+col) != 0){
-                    listTemp.set(((num*width)+col),listTemp.get((row*width)+col));
-                    if(num != row){
-                        listTemp.set(((row*width)+col),0);
+    private static int slideLineTracked(int[] cells, int start, int stride, int length, int width, MoveResult result) {
+        int out = start;
+        int pending = 0;
+        int pendingFrom = 0;
+        int score = 0;
+        for (int k = 0, in = start; k < length; k++, in += stride) {
+            int value = cells[in];
+            if (value == 0) {
+                continue;
+            }
+            cells[in] = 0;
+            if (value == pending) {
+                cells[out] = value * 2;
+                score += value * 2;
+                track(result, width, pendingFrom, out, value, true);
+                track(result, width, in, out, value, true);
+                out += stride;
+                pending = 0;
+            } else {
+                if (pending != 0) {
+                    cells[out] = pending;
+                    if (pendingFrom != out) {
+                        track(result, width, pendingFrom, out, pending, false);
                     }
-                    num--;
+                    out += stride;
                 }
+                pending = value;
+                pendingFrom = in;
             }
         }
-
-        // if 2 tiles with the same number is next to each other
-        // double the value of the tiles at the bottom
-        // set the top tiles value to 0
-        for(int col = 0; col < this.width; col++){
-            for(int row = this.height -1; row > 0; row--) {
-                if (listTemp.get(row * width + col).equals(listTemp.get((row - 1) * width + col))) {
-                    listTemp.set(((row * width) + col), listTemp.get((row * width) + col)*2);
-                    listTemp.set((((row-1) * width) + col), 0);
-                }
+        if (pending != 0) {
+            cells[out] = pending;
+            if (pendingFrom != out) {
+                track(result, width, pendingFrom, out, pending, false);
             }
         }
+        return score;
+    }
 
+    private static void track(MoveResult result, int width, int from, int to, int value, boolean merged) {
+        result.addTile(from / width, from % width, to / width, to % width, value, merged);
+    }
 
-        // move the rest to the bottom after adding all the same value tiles
-        for(int col = 0; col < this.width ; col++){
-            int num = height-1;
-            for(int row = height-1; row >= 0; row--){
-                if(listTemp.get((row*width)+col) != 0){
-                    listTemp.set(((num*width)+col),listTemp.get((row*width)+col));
-                    if(num != row){
-                        listTemp.set(((row*width)+col),0);
-                    }
-                    num--;
-                }
+    /**
+     * Slide one line through the precomputed table, the line is only
+     * written when every tile can be packed
+     *
+     * @return the sum of the tiles created by merges, or -1 when a tile
+     *  does not fit the table
+     */
+    private static int slideLineByTable(RowTransitionTable table, int[] cells, int start, int stride, int length) {
+        int packed = 0;
+        for (int k = 0; k < length; k++) {
+            int code = RowTransitionTable.encode(cells[start + k * stride]);
+            // the largest code would be capped by the table instead of merging
+            if (code < 0 || code == RowTransitionTable.MAX_CODE) {
+                return -1;
             }
+            packed |= code << (4 * k);
         }
-
+        int moved = table.slideLeft(packed);
+        for (int k = 0; k < length; k++) {
+            cells[start + k * stride] = RowTransitionTable.decode((moved >>> (4 * k)) & 0xF);
+        }
+        return table.score(packed);
     }
 
     /**
-     * slide the board right
+     * Return the current state of the game
+     * @return one of the possible values of GameStatus enum
      */
-    public void slideRight(ArrayList<Integer> listTemp){
-        // move all the tiles with value to the right
-        for(int row = 0; row < this.height; row++){
-            int num = this.width -1;
-            for(int col = this.width -1; col >= 0 ; col--){
-                if(listTemp.get((row*width)+col) != 0){
-                    listTemp.set(((row*width)+num),listTemp.get((row*width)+col));
-
-                    if(num != col){
-                        listTemp.set(((row*width)+col),0);
+    @Override
+    public ArrayList<Cell> getNonEmptyTiles() {
+        ArrayList<Cell> list = new ArrayList<Cell>(grid.length - tileCounts[0]);
+        forEachTile((row, column, value) -> list.add(new Cell(row, column, value)));
+        return list;
+    }
 
-                    }
-                    num--;
+    /**
+     * Call the visitor once for every non-empty tile, row by row
+     * @param visitor receives the row, column and value of every tile
+     */
+    @Override
+    public void forEachTile(TileVisitor visitor) {
+        for(int i=0, k=0;i<height;i++){
+            for(int j=0;j<width;j++, k++){
+                if(grid[k]!=0){
+                    visitor.visitTile(i, j, grid[k]);
                 }
             }
         }
+    }
 
-        // if 2 tiles with the same number is next to each other
-        // double the value of the tiles on the right
-        // set the left tiles value to 0
-        for(int row = 0; row < this.height; row++){
-
-            for(int col = this.width -1; col > 0; col--) {
-                 if (listTemp.get(row * width + col).equals(listTemp.get(row * width + (col - 1)))) {
-                    listTemp.set(((row * width) + col), listTemp.get((row * width) + col)*2);
-                    listTemp.set(((row * width) + col - 1), 0);
-                }
-            }
+    /**
+     * Copy the value of every cell row by row into the buffer
+     * @param buffer an array of at least height * width values
+     * @throws IllegalArgumentException when the buffer is too short
+     */
+    @Override
+    public void copyValues(int[] buffer) {
+        if(buffer.length < grid.length){
+            throw new IllegalArgumentException("Buffer holds " + buffer.length + " of " + grid.length + " cells");
         }
+        System.arraycopy(grid, 0, buffer, 0, grid.length);
+    }
 
-        // move the rest to the right after adding all the same value tiles
-        for(int row = 0; row < this.height; row++){
-            int num = this.width -1;
-            for(int col = this.width -1; col >= 0 ; col--){
-                if(listTemp.get((row*width)+col) != 0){
-                    listTemp.set(((row*width)+num),listTemp.get((row*width)+col));
+    @Override
+    public int getHeight(){
+        return height;
+    }
 
-                    if(num != col){
-                        listTemp.set(((row*width)+col),0);
-                    }
-                    num--;
-                }
-            }
-        }
+    @Override
+    public int getWidth(){
+        return width;
     }
 
     /**
-     * slide the board to the left
+     * Return the current state of the game
+     * @return one of the possible values of GameStatus enum
      */
-    public void slideLeft(ArrayList<Integer> listTemp){
-        for(int row = 0; row < height; row++){
-            int num = 0;
-            for(int col = 0; col < width; col++){
-                if(listTemp.get((row*width)+col) != 0){
-                    listTemp.set(((row*width)+num),listTemp.get((row*width)+col));
-
-                    if(num!=col){
-                        listTemp.set(((row*width)+col),0);
-                    }
-                    num++;
-                }
-            }
+    @Override
+    public GameStatus getStatus() {
+        // return USER_WON if the value in grid reach the winningValue
+        if(tileCounts[code(winningValue)] > 0){
+            return GameStatus.USER_WON;
         }
 
-        for(int row = 0; row < this.height; row++){
-
-            for(int col = 0; col < this.width -1; col++) {
-                if (listTemp.get(row * width + col).equals(listTemp.get(row * width + col + 1))) {
-                    listTemp.set(((row * width) + col), listTemp.get((row * width) + col)*2);
-                    listTemp.set(((row * width) + col + 1), 0);
-                }
-            }
+        // return IN_PROGRESS if there is still an empty tile, or 2 tiles of
+        // the same value next to each other
+        if(tileCounts[0] > 0 || equalPairs > 0){
+            return GameStatus.IN_PROGRESS;
         }
 
-        for(int row = 0; row < height; row++){
-            int num = 0;
-            for(int col = 0; col < width; col++){
-                if(listTemp.get((row*width)+col) != 0){
-                    listTemp.set(((row*width)+num),listTemp.get((row*width)+col));
+        // return .USER_LOST if it doesn't match any cases above
+        return GameStatus.USER_LOST;
+    }
 
-                    if(num!=col){
-                        listTemp.set(((row*width)+col),0);
-                    }
-                    num++;
-                }
+    /**
+     * Undo the most recent action, i.e. restore the board to its previous
+     * state. Calling this method multiple times will ultimately restore
+     * the game to the very first initial state of the board holding two
+     * random values. Further attempt to undo beyond this state will throw
+     * an IllegalStateException.
+     *
+     * @throws IllegalStateException when undo is not possible
+     */
+    @Override
+    public void undo() {
+        if(undoSize == 0){
+            throw new IllegalStateException();
+        }
+        //replay the last move backwards and remove it
+        undoSize--;
+        moveCount--;
+        int mask = undoLog.length - 1;
+        int start = undoFrames[(undoFrameHead + undoSize) & (undoFrames.length - 1)];
+        int count = (undoLogHead + undoLogSize - start) & mask;
+        if (count / 2 > grid.length / 8) {
+            // a large move is cheaper to summarize again in one pass
+            for (int k = count - 2; k >= 0; k -= 2) {
+                grid[undoLog[(start + k) & mask]] = undoLog[(start + k + 1) & mask];
+            }
+            recountSummary();
+        } else {
+            for (int k = count - 2; k >= 0; k -= 2) {
+                setCell(undoLog[(start + k) & mask], undoLog[(start + k + 1) & mask]);
             }
         }
-
-
+        undoLogSize -= count;
     }
-    
+
     public int getHighest(){
-        int temp=0;
-        for(int i=0;i<height;i++){
-            for(int j=0;j<width;j++){
-                if(temp<grid[i][j]){
-                    temp=grid[i][j];
-                }
+        for(int c = tileCounts.length - 1; c > 0; c--){
+            if(tileCounts[c] > 0){
+                return 1 << (c - 1);
             }
         }
-        return temp;
+        return 0;
     }
     public int getUndoSize(){
-        if(undoList.isEmpty()){
-            return 0;
+        return undoSize;
+    }
+
+    /**
+     * Limit how many moves undo() can take back. Once the limit is
+     * reached every new move forgets the oldest one.
+     *
+     * @param depth the maximum number of moves kept for undo,
+     *              Integer.MAX_VALUE keeps every move
+     * @throws IllegalArgumentException when depth is negative
+     */
+    @Override
+    public void setUndoDepth(int depth){
+        if(depth < 0){
+            throw new IllegalArgumentException();
+        }
+        undoDepth = depth;
+        while(undoSize > depth){
+            dropOldestUndoFrame();
         }
-        return undoList.size();
+        if(undoFrames != null && undoFrames.length < undoFrameCapacity()){
+            resizeUndoFrames(undoFrameCapacity());
+        }
+    }
+
+    public int getUndoDepth(){
+        return undoDepth;
+    }
+
+    /**
+     * @return the number of moves played since the last reset, minus the
+     *  moves taken back by undo. Unlike getUndoSize() it keeps counting
+     *  past the undo depth.
+     */
+    public int getMoveCount(){
+        return moveCount;
     }
     public void setWinningValue(int winningValue){
         if((winningValue&winningValue-1)==0){
@@ -455,15 +831,215 @@ public class NumberGameArrayList implements NumberSlider {
         return winningValue;
     }
     public ArrayList<Cell> getEmptyCell(){
-        ArrayList<Cell> emptyCell = new ArrayList<>();
-        for(int i=0;i<height;i++){
-            for(int j=0;j<width;j++){
-                if(grid[i][j]==0){
-                    emptyCell.add(new Cell(i,j,0));
-                }
+        ArrayList<Cell> emptyCell = new ArrayList<>(tileCounts[0]);
+        for(int w = 0; w < emptyCells.length; w++){
+            for(long word = emptyCells[w]; word != 0; word &= word - 1){
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                emptyCell.add(new Cell(i / width, i % width, 0));
             }
         }
         return emptyCell;
     }
+
+    /**
+     * @return a rough count of the heap bytes held by the game: its
+     *  arrays, with their headers, plus a fixed amount for the object and
+     *  its generator
+     */
+    public long getHeapSize(){
+        if(grid == null){
+            return 160 + 16 + 4L * tileCounts.length;
+        }
+        return 160 + 16 * 6 + 4L * (grid.length + scratch.length + undoLog.length + undoFrames.length
+                + tileCounts.length) + 8L * emptyCells.length;
+    }
+
+    /**
+     * @return the number of bytes save(ByteBuffer) writes for the game as
+     *  it is now
+     */
+    public int getSaveSize(){
+        return SAVE_HEADER + grid.length + 4 * undoSize + 5 * (undoLogSize / 2);
+    }
+
+    /**
+     * Write the whole game, undo history and tile generator included, at
+     * the position of the buffer. The buffer is switched to little-endian
+     * order.
+     *
+     * @param buffer a buffer with at least getSaveSize() bytes remaining
+     * @throws java.nio.BufferOverflowException when the buffer is too
+     *  small
+     */
+    public void save(ByteBuffer buffer){
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(SAVE_MAGIC).putInt(SAVE_VERSION);
+        buffer.putInt(height).putInt(width).putInt(winningValue).putInt(moveCount).putInt(undoDepth);
+        if(random instanceof SplitMixRandom){
+            buffer.put((byte) 1).putLong(((SplitMixRandom) random).getState());
+        }else{
+            buffer.put((byte) 0).putLong(0);
+        }
+        for(int value : grid){
+            buffer.put((byte) code(value));
+        }
+        int mask = undoLog.length - 1;
+        buffer.putInt(undoSize).putInt(undoLogSize / 2);
+        for(int k = 0; k < undoSize; k++){
+            int start = undoFrames[(undoFrameHead + k) & (undoFrames.length - 1)];
+            buffer.putInt(((start - undoLogHead) & mask) / 2);
+        }
+        for(int k = 0; k < undoLogSize; k += 2){
+            buffer.putInt(undoLog[(undoLogHead + k) & mask]);
+            buffer.put((byte) code(undoLog[(undoLogHead + k + 1) & mask]));
+        }
+    }
+
+    /**
+     * Replace this game with one written by save(ByteBuffer), reading from
+     * the position of the buffer. The tile generator takes the saved
+     * state when both are SplitMixRandom generators, otherwise it is
+     * kept. The buffer is switched to little-endian order.
+     *
+     * @param buffer the saved game
+     * @throws IllegalArgumentException when the buffer does not hold a
+     *  complete saved game; the game is then left unchanged
+     */
+    public void restore(ByteBuffer buffer){
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        try {
+            if(buffer.getInt() != SAVE_MAGIC || buffer.getInt() != SAVE_VERSION){
+                throw new IllegalArgumentException("Not a saved game");
+            }
+            int h = buffer.getInt();
+            int w = buffer.getInt();
+            int winning = buffer.getInt();
+            int moves = buffer.getInt();
+            int depth = buffer.getInt();
+            boolean seeded = buffer.get() != 0;
+            long state = buffer.getLong();
+            if(h <= 0 || w <= 0 || (long) h * w > buffer.remaining() || winning <= 0
+                    || (winning & winning - 1) != 0 || moves < 0 || depth < 0){
+                throw new IllegalArgumentException("Corrupt saved game");
+            }
+            int cells = h * w;
+            byte[] codes = new byte[cells];
+            buffer.get(codes);
+            int frames = buffer.getInt();
+            int entries = buffer.getInt();
+            if(frames < 0 || frames > depth || entries < 0 || (frames == 0 && entries > 0)
+                    || 4L * frames + 5L * entries > buffer.remaining()){
+                throw new IllegalArgumentException("Corrupt saved game");
+            }
+            int[] frameStarts = new int[frames];
+            for(int k = 0; k < frames; k++){
+                frameStarts[k] = buffer.getInt();
+                // the oldest frame starts the log, the others follow in order
+                if(frameStarts[k] < (k == 0 ? 0 : frameStarts[k - 1]) || frameStarts[k] > entries
+                        || (k == 0 && frameStarts[k] != 0)){
+                    throw new IllegalArgumentException("Corrupt saved game");
+                }
+            }
+            int[] log = new int[2 * entries];
+            for(int k = 0; k < log.length; k += 2){
+                log[k] = buffer.getInt();
+                log[k + 1] = decode(buffer.get());
+                if(log[k] < 0 || log[k] >= cells){
+                    throw new IllegalArgumentException("Corrupt saved game");
+                }
+            }
+            int[] values = new int[cells];
+            for(int k = 0; k < cells; k++){
+                values[k] = decode(codes[k]);
+            }
+            // everything is read and checked, the game can change now
+            resizeBoard(h, w, winning);
+            undoDepth = depth;
+            System.arraycopy(values, 0, grid, 0, cells);
+            recountSummary();
+            undoLog = new int[Math.max(64, Integer.highestOneBit(2 * entries) << 1)];
+            System.arraycopy(log, 0, undoLog, 0, log.length);
+            undoLogSize = log.length;
+            undoFrames = new int[Math.max(undoFrameCapacity(), Integer.highestOneBit(Math.max(1, frames)) << 1)];
+            for(int k = 0; k < frames; k++){
+                undoFrames[k] = 2 * frameStarts[k];
+            }
+            undoSize = frames;
+            moveCount = moves;
+            if(seeded && random instanceof SplitMixRandom){
+                ((SplitMixRandom) random).setState(state);
+            }
+        } catch (BufferUnderflowException e) {
+            buffer.position(start);
+            throw new IllegalArgumentException("Truncated saved game", e);
+        } catch (IllegalArgumentException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Write the whole game to a file. The file is written next to the
+     * target and moved in place, so an interrupted save leaves the
+     * previous checkpoint intact.
+     *
+     * @param path the file to write
+     * @throws IOException when the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(getSaveSize());
+        save(buffer);
+        buffer.flip();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a game written by save(Path). Its tiles continue from the saved
+     * generator state, or from an unseeded generator when the saved game
+     * used another kind of generator.
+     *
+     * @param path the file to read
+     * @return the saved game
+     * @throws IOException when the file can't be read or is not a saved
+     *  game
+     */
+    public static NumberGameArrayList load(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Not a saved game: " + path);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Truncated saved game: " + path);
+                }
+            }
+            buffer.flip();
+        }
+        NumberGameArrayList game = new NumberGameArrayList();
+        try {
+            game.restore(buffer);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage() + ": " + path, e);
+        }
+        return game;
+    }
+
+    private static int decode(byte code){
+        if(code < 0 || code > 31){
+            throw new IllegalArgumentException("Corrupt saved game");
+        }
+        return code == 0 ? 0 : 1 << (code - 1);
+    }
 }
 
@@ -0,0 +1,519 @@
+package Project2;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A NumberSlider for the classic 4x4 board that keeps the whole board
+ * in a single long. Every cell is a four-bit exponent code: 0 marks an
+ * empty cell and a code c holds the tile 2^(c-1), so the board can hold
+ * tiles from 1 up to 16384. Cell (row, column) lives in the nibble at
+ * bit 4*(4*row + column).
+ *
+ * Rows are moved with the shared RowTransitionTable for four cells and
+ * columns reuse the same table through a transpose of the board.
+ */
+public class NumberGameBitBoard implements NumberSlider {
+    public static final int SIZE = 4;
+    public static final int MAX_CODE = RowTransitionTable.MAX_CODE;
+
+    private static final RowTransitionTable ROWS = RowTransitionTable.forLength(SIZE);
+
+    private long board;
+    private int winningValue;
+    private int winningCode;
+    private long[] undoList;
+    private int undoHead;
+    private int undoSize;
+    private int undoDepth = Integer.MAX_VALUE;
+    private int moveCount;
+    private final RandomGenerator random;
+
+    /**
+     * Create a game that places tiles with an unseeded generator
+     */
+    public NumberGameBitBoard() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a game whose tiles are reproducible from a seed
+     * @param seed the seed of the tile generator
+     */
+    public NumberGameBitBoard(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Create a game that draws every random tile from the given generator,
+     * which is used without synchronization
+     * @param random the source of the tile positions and values
+     */
+    public NumberGameBitBoard(RandomGenerator random) {
+        if (random == null) {
+            throw new IllegalArgumentException();
+        }
+        this.random = random;
+    }
+
+    /**
+     * Reset the game logic to handle a board of a given dimension.
+     * Only the 4x4 board fits in a single long, any other size is refused.
+     *
+     * @param height the number of rows in the board
+     * @param width the number of columns in the board
+     * @param winningValue the value that must appear on the board to
+     *                     win the game
+     * @throws IllegalArgumentException when the board is not 4x4, or the
+     *  winning value is not power of two, is negative or does not fit in
+     *  a four-bit code
+     */
+    @Override
+    public void resizeBoard(int height, int width, int winningValue) {
+        if (height != SIZE || width != SIZE) {
+            throw new IllegalArgumentException("NumberGameBitBoard only supports 4x4 boards");
+        }
+        setWinningValue(winningValue);
+        board = 0;
+        undoList = new long[undoDepth <= 16 || undoDepth > (1 << 16) ? 16 : undoDepth];
+        undoHead = 0;
+        undoSize = 0;
+        moveCount = 0;
+    }
+
+    /**
+     * Remove all numbered tiles from the board and place
+     * TWO non-zero values at random location
+     */
+    @Override
+    public void reset() {
+        board = 0;
+        placeRandomValue();
+        placeRandomValue();
+        undoHead = 0;
+        undoSize = 0;
+        moveCount = 0;
+    }
+
+    /**
+     * Set the game board to the desired values given in the 2D array.
+     * @param ref a 4x4 array holding zero or a power of two up to 16384
+     *            in every cell
+     * @throws IllegalArgumentException when a value can not be encoded
+     */
+    @Override
+    public void setValues(int[][] ref) {
+        long temp = 0;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                temp |= (long) encode(ref[row][col]) << shift(row, col);
+            }
+        }
+        board = temp;
+    }
+
+    /**
+     * Insert one random tile into an empty spot on the board.
+     *
+     * @return a Cell object with its row, column, and value attributes
+     *  initialized properly
+     *
+     * @throws IllegalStateException when the board has no empty cell
+     */
+    @Override
+    public Cell placeRandomValue() {
+        int empty = countEmpty(board);
+        if (empty == 0) {
+            throw new IllegalStateException();
+        }
+        int code = 2 + random.nextInt(2);
+        int target = random.nextInt(empty);
+        for (int k = 0; k < SIZE * SIZE; k++) {
+            if (((board >>> (4 * k)) & 0xF) == 0) {
+                if (target == 0) {
+                    board |= (long) code << (4 * k);
+                    return new Cell(k / SIZE, k % SIZE, decode(code));
+                }
+                target--;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Slide all the tiles in the board in the requested direction
+     * @param dir move direction of the tiles
+     *
+     * @return true when the board changes
+     */
+    @Override
+    public boolean slide(SlideDirection dir) {
+        return slide(dir, null);
+    }
+
+    /**
+     * Slide all the tiles in the board in the requested direction and
+     * describe what moved. The tiles are tracked on an unpacked copy of
+     * the board, so only front ends should ask for the description.
+     * @param dir move direction of the tiles
+     * @param result cleared and filled with the tiles that moved, the
+     *               score and the spawned tile, or null
+     *
+     * @return true when the board changes
+     */
+    @Override
+    public boolean slide(SlideDirection dir, MoveResult result) {
+        if (result != null) {
+            result.clear();
+        }
+        long moved = move(board, dir);
+        if (moved == board) {
+            return false;
+        }
+        int score = 0;
+        if (result != null) {
+            int[] cells = new int[SIZE * SIZE];
+            copyValues(cells);
+            score = NumberGameArrayList.slideBoard(cells, SIZE, SIZE, dir, result);
+        }
+        if (undoDepth > 0) {
+            if (undoSize == undoDepth) {
+                // forget the oldest board
+                undoHead = (undoHead + 1) % undoList.length;
+                undoSize--;
+            }
+            if (undoSize == undoList.length) {
+                resizeUndo(undoSize * 2);
+            }
+            undoList[(undoHead + undoSize) % undoList.length] = board;
+            undoSize++;
+        }
+        moveCount++;
+        board = moved;
+        Cell spawned = placeRandomValue();
+        if (result != null) {
+            result.finish(score, spawned.getRow(), spawned.getColumn(), spawned.getValue());
+        }
+        return true;
+    }
+
+    /**
+     *
+     * @return an arraylist of Cells. Each cell holds the (row,column) and
+     * value of a tile
+     */
+    @Override
+    public ArrayList<Cell> getNonEmptyTiles() {
+        ArrayList<Cell> list = new ArrayList<>();
+        forEachTile((row, column, value) -> list.add(new Cell(row, column, value)));
+        return list;
+    }
+
+    /**
+     * Call the visitor once for every non-empty tile, row by row
+     * @param visitor receives the row, column and value of every tile
+     */
+    @Override
+    public void forEachTile(TileVisitor visitor) {
+        for (int k = 0; k < SIZE * SIZE; k++) {
+            int code = (int) (board >>> (4 * k)) & 0xF;
+            if (code != 0) {
+                visitor.visitTile(k / SIZE, k % SIZE, decode(code));
+            }
+        }
+    }
+
+    /**
+     * Copy the value of every cell row by row into the buffer
+     * @param buffer an array of at least 16 values
+     * @throws IllegalArgumentException when the buffer is too short
+     */
+    @Override
+    public void copyValues(int[] buffer) {
+        if (buffer.length < SIZE * SIZE) {
+            throw new IllegalArgumentException("Buffer holds " + buffer.length + " of " + SIZE * SIZE + " cells");
+        }
+        for (int k = 0; k < SIZE * SIZE; k++) {
+            buffer[k] = decode((int) (board >>> (4 * k)) & 0xF);
+        }
+    }
+
+    @Override
+    public int getHeight() {
+        return SIZE;
+    }
+
+    @Override
+    public int getWidth() {
+        return SIZE;
+    }
+
+    /**
+     * Return the current state of the game
+     * @return one of the possible values of GameStatus enum
+     */
+    @Override
+    public GameStatus getStatus() {
+        for (int k = 0; k < SIZE * SIZE; k++) {
+            if (((board >>> (4 * k)) & 0xF) == winningCode) {
+                return GameStatus.USER_WON;
+            }
+        }
+        if (canMove(board)) {
+            return GameStatus.IN_PROGRESS;
+        }
+        return GameStatus.USER_LOST;
+    }
+
+    /**
+     * Undo the most recent action, i.e. restore the board to its previous
+     * state. Calling this method multiple times will ultimately restore
+     * the game to the very first initial state of the board holding two
+     * random values. Further attempt to undo beyond this state will throw
+     * an IllegalStateException.
+     *
+     * @throws IllegalStateException when undo is not possible
+     */
+    @Override
+    public void undo() {
+        if (undoSize == 0) {
+            throw new IllegalStateException();
+        }
+        undoSize--;
+        moveCount--;
+        board = undoList[(undoHead + undoSize) % undoList.length];
+    }
+
+    /**
+     * Limit how many moves undo can take back. Once the limit is reached
+     * every new move forgets the oldest one.
+     *
+     * @param depth the maximum number of moves kept for undo,
+     *              Integer.MAX_VALUE keeps every move
+     * @throws IllegalArgumentException when depth is negative
+     */
+    @Override
+    public void setUndoDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException();
+        }
+        undoDepth = depth;
+        if (undoSize > depth) {
+            undoHead = (undoHead + undoSize - depth) % undoList.length;
+            undoSize = depth;
+        }
+        if (undoList != null && depth <= (1 << 16) && undoList.length < depth) {
+            resizeUndo(depth);
+        }
+    }
+
+    public int getHighest() {
+        int max = 0;
+        for (int k = 0; k < SIZE * SIZE; k++) {
+            max = Math.max(max, (int) (board >>> (4 * k)) & 0xF);
+        }
+        return decode(max);
+    }
+
+    public int getUndoSize() {
+        return undoSize;
+    }
+
+    /**
+     * @return the number of moves played since the last reset, minus the
+     *  moves taken back by undo
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public void setWinningValue(int winningValue) {
+        if (winningValue <= 0 || (winningValue & winningValue - 1) != 0
+                || Integer.numberOfTrailingZeros(winningValue) >= MAX_CODE) {
+            throw new IllegalArgumentException();
+        }
+        this.winningValue = winningValue;
+        this.winningCode = encode(winningValue);
+    }
+
+    public int getWinningValue() {
+        return winningValue;
+    }
+
+    /**
+     * @return the packed board, one four-bit code per cell
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Replace the packed board without touching the undo history
+     * @param board one four-bit code per cell
+     */
+    public void setBoard(long board) {
+        this.board = board;
+    }
+
+    /**
+     * Slide a packed board without spawning a new tile
+     * @param board the packed board
+     * @param dir move direction of the tiles
+     * @return the packed board after the move
+     */
+    public static long move(long board, SlideDirection dir) {
+        switch (dir) {
+            case LEFT:
+                return moveRows(board, true);
+            case RIGHT:
+                return moveRows(board, false);
+            case UP:
+                return transpose(moveRows(transpose(board), true));
+            default:
+                return transpose(moveRows(transpose(board), false));
+        }
+    }
+
+    /**
+     * @param board the packed board
+     * @param dir move direction of the tiles
+     * @return the sum of the tiles created by merges during the move
+     */
+    public static int moveScore(long board, SlideDirection dir) {
+        if (dir == SlideDirection.UP || dir == SlideDirection.DOWN) {
+            board = transpose(board);
+        }
+        int score = 0;
+        for (int row = 0; row < SIZE; row++) {
+            score += ROWS.score((int) (board >>> (16 * row)) & 0xFFFF);
+        }
+        return score;
+    }
+
+    /**
+     * @param board the packed board
+     * @return true when at least one direction changes the board
+     */
+    public static boolean canMove(long board) {
+        if (countEmpty(board) > 0) {
+            return true;
+        }
+        long t = transpose(board);
+        for (int row = 0; row < SIZE; row++) {
+            int r = (int) (board >>> (16 * row)) & 0xFFFF;
+            int c = (int) (t >>> (16 * row)) & 0xFFFF;
+            if (ROWS.slideLeft(r) != r || ROWS.slideLeft(c) != c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param board the packed board
+     * @return the number of cells holding code zero
+     */
+    public static int countEmpty(long board) {
+        /* fold every nibble into its lowest bit, set when the nibble is non-zero */
+        long x = board | (board >>> 1);
+        x |= x >>> 2;
+        return SIZE * SIZE - Long.bitCount(x & 0x1111111111111111L);
+    }
+
+    /**
+     * Mirror the board along its main diagonal, so rows become columns
+     * @param x the packed board
+     * @return the transposed board
+     */
+    public static long transpose(long x) {
+        long a1 = x & 0xF0F00F0FF0F00F0FL;
+        long a2 = x & 0x0000F0F00000F0F0L;
+        long a3 = x & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * Mirror the board left to right, so every row is reversed
+     * @param x the packed board
+     * @return the mirrored board
+     */
+    public static long mirror(long x) {
+        return ((x & 0x000F000F000F000FL) << 12) | ((x & 0x00F000F000F000F0L) << 4)
+                | ((x >>> 4) & 0x00F000F000F000F0L) | ((x >>> 12) & 0x000F000F000F000FL);
+    }
+
+    /**
+     * Pack the tiles of any game on a 4x4 board
+     * @param game a game on a 4x4 board
+     * @return the packed board, one four-bit code per cell
+     * @throws IllegalArgumentException when the board is not 4x4 or a tile
+     *  can not be encoded
+     */
+    public static long pack(PlayableGame game) {
+        if (game instanceof NumberGameBitBoard) {
+            return ((NumberGameBitBoard) game).getBoard();
+        }
+        if (game.getHeight() != SIZE || game.getWidth() != SIZE) {
+            throw new IllegalArgumentException("Only 4x4 boards can be packed");
+        }
+        int[] values = new int[SIZE * SIZE];
+        game.copyValues(values);
+        long board = 0;
+        for (int k = 0; k < values.length; k++) {
+            board |= (long) encode(values[k]) << (4 * k);
+        }
+        return board;
+    }
+
+    /**
+     * @param value zero or a power of two
+     * @return the four-bit code of the value
+     * @throws IllegalArgumentException when the value can not be encoded
+     */
+    public static int encode(int value) {
+        if (value == 0) {
+            return 0;
+        }
+        int code = Integer.numberOfTrailingZeros(value) + 1;
+        if (value < 0 || (value & value - 1) != 0 || code > MAX_CODE) {
+            throw new IllegalArgumentException("Can't encode tile " + value);
+        }
+        return code;
+    }
+
+    /**
+     * @param code a four-bit code
+     * @return the tile value held by the code
+     */
+    public static int decode(int code) {
+        return code == 0 ? 0 : 1 << (code - 1);
+    }
+
+    private void resizeUndo(int capacity) {
+        long[] temp = new long[capacity];
+        for (int k = 0; k < undoSize; k++) {
+            temp[k] = undoList[(undoHead + k) % undoList.length];
+        }
+        undoList = temp;
+        undoHead = 0;
+    }
+
+    private static long moveRows(long board, boolean left) {
+        long result = 0;
+        for (int row = 0; row < SIZE; row++) {
+            int r = (int) (board >>> (16 * row)) & 0xFFFF;
+            long moved = left ? ROWS.slideLeft(r) : ROWS.slideRight(r);
+            result |= moved << (16 * row);
+        }
+        return result;
+    }
+
+    private static int shift(int row, int col) {
+        return 4 * (SIZE * row + col);
+    }
+}
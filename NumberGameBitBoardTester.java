@@ -0,0 +1,458 @@
+package Project2;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class NumberGameBitBoardTester {
+    private final static int REPEAT_COUNT = 500;
+    private final static int GAME_GOAL = 1024;
+    private static NumberGameBitBoard gameLogic;
+    private static NumberGameArrayList reference;
+    private static Random gen;
+
+    @BeforeClass
+    public static void globalSetup()
+    {
+        gen = new Random();
+        gameLogic = new NumberGameBitBoard();
+        reference = new NumberGameArrayList();
+    }
+
+    @Before
+    public void setUp() {
+        gameLogic.resizeBoard(4, 4, GAME_GOAL);
+        reference.resizeBoard(4, 4, GAME_GOAL);
+    }
+
+    @Test
+    public void resizeShouldRefuseOtherSizes()
+    {
+        int[][] sizes = {{3, 4}, {4, 5}, {8, 8}, {1, 16}};
+        for (int[] size : sizes) {
+            try {
+                gameLogic.resizeBoard(size[0], size[1], GAME_GOAL);
+                fail("resizeBoard(" + size[0] + "," + size[1] + ") should be refused");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        /* a refused resize must leave the 4x4 game usable */
+        gameLogic.reset();
+        assertEquals(2, gameLogic.getNonEmptyTiles().size());
+    }
+
+    @Test
+    public void resetShouldShowTwoValue()
+    {
+        gameLogic.reset();
+        List<Cell> result = gameLogic.getNonEmptyTiles();
+        assertEquals(2, result.size());
+        for (Cell c : result)
+            assertTrue(c.getValue() == 2 || c.getValue() == 4);
+        assertEquals(GameStatus.IN_PROGRESS, gameLogic.getStatus());
+    }
+
+    @Test
+    public void randomValueShallBePlacedOnEmptySpot() {
+        gameLogic.setValues(new int[4][4]);
+        for (int k = 0; k < 16; k++) {
+            int oldCount = gameLogic.getNonEmptyTiles().size();
+            gameLogic.placeRandomValue();
+            assertEquals(oldCount + 1, gameLogic.getNonEmptyTiles().size());
+        }
+        try {
+            gameLogic.placeRandomValue();
+            fail("placeRandomValue() should fail on a full board");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void slideShallMatchArrayListEngine()
+    {
+        for (int count = 0; count < REPEAT_COUNT; count++) {
+            int[][] vals = randomBoard();
+            for (SlideDirection dir : SlideDirection.values()) {
+                gameLogic.setValues(vals);
+                reference.setValues(vals);
+                assertEquals(reference.getStatus(), gameLogic.getStatus());
+                long moved = NumberGameBitBoard.move(gameLogic.getBoard(), dir);
+                boolean changed = reference.slide(dir);
+                assertEquals(changed, moved != gameLogic.getBoard());
+
+                /* both boards may only differ by the tile spawned after the move */
+                long diff = pack(gameBoard(reference)) ^ moved;
+                int spawned = 16 - NumberGameBitBoard.countEmpty(diff);
+                assertEquals(dir + " " + Arrays.deepToString(vals), changed ? 1 : 0, spawned);
+                assertEquals(0, moved & diff);
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void moveResultShallMatchArrayListEngine()
+    {
+        MoveResult expected = new MoveResult();
+        MoveResult result = new MoveResult();
+        for (int count = 0; count < REPEAT_COUNT; count++) {
+            int[][] vals = randomBoard();
+            for (SlideDirection dir : SlideDirection.values()) {
+                gameLogic.setValues(vals);
+                reference.setValues(vals);
+                assertEquals(reference.slide(dir, expected), gameLogic.slide(dir, result));
+                assertEquals(expected.isMoved(), result.isMoved());
+                assertEquals(expected.getScore(), result.getScore());
+                assertEquals(expected.getTileCount(), result.getTileCount());
+                for (int t = 0; t < result.getTileCount(); t++) {
+                    assertEquals(expected.getFromRow(t), result.getFromRow(t));
+                    assertEquals(expected.getFromColumn(t), result.getFromColumn(t));
+                    assertEquals(expected.getToRow(t), result.getToRow(t));
+                    assertEquals(expected.getToColumn(t), result.getToColumn(t));
+                    assertEquals(expected.getValue(t), result.getValue(t));
+                    assertEquals(expected.isMerged(t), result.isMerged(t));
+                }
+                Cell spawned = result.getSpawned();
+                if (result.isMoved()) {
+                    assertEquals(spawned.getValue(), gameBoard(gameLogic)[spawned.getRow()][spawned.getColumn()]);
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void undoShallRestorePreviousBoards()
+    {
+        gameLogic.reset();
+        List<Long> boards = new ArrayList<>();
+        for (int count = 0; count < 50 && gameLogic.getStatus() == GameStatus.IN_PROGRESS; count++) {
+            long before = gameLogic.getBoard();
+            if (gameLogic.slide(SlideDirection.values()[gen.nextInt(4)]))
+                boards.add(before);
+        }
+        assertEquals(boards.size(), gameLogic.getUndoSize());
+        for (int k = boards.size() - 1; k >= 0; k--) {
+            gameLogic.undo();
+            assertEquals(boards.get(k).longValue(), gameLogic.getBoard());
+        }
+        try {
+            gameLogic.undo();
+            fail("undo() beyond the first board should fail");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testWinningValue()
+    {
+        int[][] mat = new int[4][4];
+        mat[0][0] = GAME_GOAL / 2;
+        mat[3][0] = GAME_GOAL / 2;
+        gameLogic.setValues(mat);
+        assertEquals(GameStatus.IN_PROGRESS, gameLogic.getStatus());
+        assertTrue(gameLogic.slide(SlideDirection.DOWN));
+        assertEquals(GameStatus.USER_WON, gameLogic.getStatus());
+        assertEquals(GAME_GOAL, gameLogic.getHighest());
+    }
+
+    /* The scripted cases of TenTwentyFourTester, on 4x4 boards. Each one
+       runs against the bitboard and the arraylist engine. */
+
+    @Test(timeout = 5000)
+    public void slidingOperationsThatMovesNoTiles()
+    {
+        for (NumberSlider game : engines()) {
+            int[][] vals = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                vals[0][k] = 1 << k;
+            noMoveSwiper(game, vals, SlideDirection.LEFT, SlideDirection.RIGHT, SlideDirection.UP);
+
+            vals = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                vals[3][k] = 1 << k;
+            noMoveSwiper(game, vals, SlideDirection.LEFT, SlideDirection.RIGHT, SlideDirection.DOWN);
+
+            vals = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                vals[k][0] = 1 << k;
+            noMoveSwiper(game, vals, SlideDirection.LEFT, SlideDirection.UP, SlideDirection.DOWN);
+
+            vals = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                vals[k][3] = 1 << k;
+            noMoveSwiper(game, vals, SlideDirection.RIGHT, SlideDirection.UP, SlideDirection.DOWN);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void slideShallReturnFalseWhenBoardUnchanged()
+    {
+        for (NumberSlider game : engines()) {
+            for (String pat : NOMOVE_PATTERNS) {
+                Map<Character, Integer> valMap = makeMap(pat);
+                noMoveSwiper(game, fillColumns(pat, valMap), SlideDirection.UP);
+                noMoveSwiper(game, fillColumns(reverse(pat), valMap), SlideDirection.DOWN);
+                noMoveSwiper(game, fillRows(pat, valMap), SlideDirection.LEFT);
+                noMoveSwiper(game, fillRows(reverse(pat), valMap), SlideDirection.RIGHT);
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void slidingThatMovesTilesToOppositeSide()
+    {
+        for (NumberSlider game : engines()) {
+            int[][] vals = new int[4][4];
+            int[][] after = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                after[3][k] = vals[0][k] = 1 << gen.nextInt(7);
+            swiper(game, SlideDirection.DOWN, vals, after);
+
+            vals = new int[4][4];
+            after = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                after[0][k] = vals[3][k] = 1 << gen.nextInt(7);
+            swiper(game, SlideDirection.UP, vals, after);
+
+            vals = new int[4][4];
+            after = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                after[k][3] = vals[k][0] = 1 << gen.nextInt(7);
+            swiper(game, SlideDirection.RIGHT, vals, after);
+
+            vals = new int[4][4];
+            after = new int[4][4];
+            for (int k = 0; k < 4; k++)
+                after[k][0] = vals[k][3] = 1 << gen.nextInt(7);
+            swiper(game, SlideDirection.LEFT, vals, after);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void swipesShallMergeInPatternOrder()
+    {
+        for (NumberSlider game : engines()) {
+            for (String[] pat : MOVE_PATTERNS) {
+                Map<Character, Integer> valMap = makeMap(pat[0]);
+                swiper(game, SlideDirection.UP, fillColumns(pat[0], valMap), fillColumns(pat[1], valMap));
+                swiper(game, SlideDirection.DOWN, fillColumns(reverse(pat[0]), valMap),
+                        fillColumns(reverse(pat[1]), valMap));
+                swiper(game, SlideDirection.LEFT, fillRows(pat[0], valMap), fillRows(pat[1], valMap));
+                swiper(game, SlideDirection.RIGHT, fillRows(reverse(pat[0]), valMap),
+                        fillRows(reverse(pat[1]), valMap));
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testIsGameBoardFullMovePossible()
+    {
+        for (NumberSlider game : engines()) {
+            for (String pat : NOT_OVER) {
+                Map<Character, Integer> valMap = makeMap(pat);
+                game.setValues(fillColumns(pat, valMap));
+                assertEquals(pat, GameStatus.IN_PROGRESS, game.getStatus());
+                game.setValues(fillRows(pat, valMap));
+                assertEquals(pat, GameStatus.IN_PROGRESS, game.getStatus());
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testIsGameBoardFullNoMoreMoves()
+    {
+        for (NumberSlider game : engines()) {
+            Map<Character, Integer> valMap = makeMap("abcd");
+            int[][] mat = new int[4][4];
+            for (int r = 0; r < 2; r++) {
+                for (int c = 0; c < 4; c++) {
+                    /* alternate the sequence within the two adjacent rows */
+                    mat[2 * r][c] = valMap.get((char) ('a' + c));
+                    mat[2 * r + 1][3 - c] = valMap.get((char) ('a' + c));
+                }
+            }
+            game.setValues(mat);
+            assertEquals(GameStatus.USER_LOST, game.getStatus());
+            for (SlideDirection dir : SlideDirection.values())
+                assertFalse(game.slide(dir));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void fullBoardShallWinInEveryDirection()
+    {
+        for (NumberSlider game : engines()) {
+            int[][] mat = new int[4][4];
+            for (int[] row : mat)
+                Arrays.fill(row, GAME_GOAL / 2);
+            for (SlideDirection dir : SlideDirection.values()) {
+                game.setValues(mat);
+                assertEquals(GameStatus.IN_PROGRESS, game.getStatus());
+                assertTrue(game.slide(dir));
+                assertEquals(dir.toString(), GameStatus.USER_WON, game.getStatus());
+            }
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void undoAfterWinShallResumeGame()
+    {
+        for (NumberSlider game : engines()) {
+            game.reset();
+            int[][] mat = new int[4][4];
+            mat[0][0] = GAME_GOAL / 2;
+            mat[0][3] = GAME_GOAL / 2;
+            mat[2][1] = 2;
+            game.setValues(mat);
+            assertTrue(game.slide(SlideDirection.LEFT));
+            assertEquals(GameStatus.USER_WON, game.getStatus());
+            assertEquals(GAME_GOAL, gameBoard(game)[0][0]);
+            game.undo();
+            assertEquals(GameStatus.IN_PROGRESS, game.getStatus());
+            assertArrayEquals(mat, gameBoard(game));
+            try {
+                game.undo();
+                fail("undo() beyond the first board should fail");
+            } catch (IllegalStateException expected) {
+            }
+        }
+    }
+
+    private List<NumberSlider> engines()
+    {
+        return Arrays.asList(gameLogic, reference);
+    }
+
+    /**
+     * Slide the before board and check it became the after board, plus
+     * one spawned tile on a cell the after board leaves empty
+     */
+    private void swiper(NumberSlider game, SlideDirection dir, int[][] before, int[][] after)
+    {
+        game.setValues(before);
+        String action = game.getClass().getSimpleName() + " " + dir + " " + Arrays.deepToString(before);
+        assertTrue(action + " should move", game.slide(dir));
+        int[][] actual = gameBoard(game);
+        int spawned = 0;
+        for (int k = 0; k < 4; k++)
+            for (int m = 0; m < 4; m++)
+                if (actual[k][m] != after[k][m]) {
+                    assertEquals(action + " at (" + k + "," + m + ")", 0, after[k][m]);
+                    assertTrue(actual[k][m] == 2 || actual[k][m] == 4);
+                    spawned++;
+                }
+        assertEquals(action, 1, spawned);
+    }
+
+    private void noMoveSwiper(NumberSlider game, int[][] mat, SlideDirection... dirs)
+    {
+        for (SlideDirection dir : dirs) {
+            game.setValues(mat);
+            String action = game.getClass().getSimpleName() + " " + dir + " " + Arrays.deepToString(mat);
+            assertFalse(action + " should not move", game.slide(dir));
+            assertArrayEquals(action, mat, gameBoard(game));
+        }
+    }
+
+    private int[][] fillColumns(String template, Map<Character, Integer> valMap)
+    {
+        int[][] mat = new int[4][4];
+        for (int c = 0; c < 4; c++)
+            for (int r = 0; r < 4; r++)
+                mat[r][c] = valueOf(template.charAt(r), valMap);
+        return mat;
+    }
+
+    private int[][] fillRows(String template, Map<Character, Integer> valMap)
+    {
+        int[][] mat = new int[4][4];
+        for (int r = 0; r < 4; r++)
+            for (int c = 0; c < 4; c++)
+                mat[r][c] = valueOf(template.charAt(c), valMap);
+        return mat;
+    }
+
+    /* an uppercase letter stands for twice the value of its lowercase one */
+    private int valueOf(char ch, Map<Character, Integer> valMap)
+    {
+        return Character.isUpperCase(ch) ? 2 * valMap.get(Character.toLowerCase(ch)) : valMap.get(ch);
+    }
+
+    private String reverse(String s)
+    {
+        return new StringBuilder(s).reverse().toString();
+    }
+
+    private Map<Character, Integer> makeMap(String pattern)
+    {
+        Set<Character> chars = new TreeSet<>();
+        for (char c : pattern.toCharArray())
+            if (c != '.')
+                chars.add(Character.toLowerCase(c));
+        Set<Integer> values = new TreeSet<>();
+        while (values.size() != chars.size())
+            values.add(1 << gen.nextInt(7));
+        Map<Character, Integer> numMap = new TreeMap<>();
+        Iterator<Integer> valIter = values.iterator();
+        for (char c : chars)
+            numMap.put(c, valIter.next());
+        numMap.put('.', 0);
+        return numMap;
+    }
+
+    private int[][] gameBoard(NumberSlider game)
+    {
+        int[][] out = new int[4][4];
+        for (Cell c : game.getNonEmptyTiles())
+            out[c.getRow()][c.getColumn()] = c.getValue();
+        return out;
+    }
+
+    private long pack(int[][] vals)
+    {
+        long board = 0;
+        for (int k = 0; k < 16; k++)
+            board |= (long) NumberGameBitBoard.encode(vals[k / 4][k % 4]) << (4 * k);
+        return board;
+    }
+
+    /* use DOT (.) for empty cells and uppercase letters for merged tiles */
+
+    private final static String[] NOMOVE_PATTERNS = {
+            "....", "abcd", "a...", "ab..", "abc."
+    };
+
+    private final static String[][] MOVE_PATTERNS = {
+            /* shift only, no merges */
+            {".a.b", "ab.."},
+            {"a..b", "ab.."},
+            {"...a", "a..."},
+            {".a.a", "A..."},
+
+            /* merges happen once per tile, nearest the edge first */
+            {"aa..", "A..."},
+            {"aaa.", "Aa.."},
+            {"aaaa", "AA.."},
+            {"aabb", "AB.."},
+            {"abba", "aBa."},
+            {"abbb", "aBb."},
+            {"a.bb", "aB.."},
+            {".aab", "Ab.."}
+    };
+
+    private final static String[] NOT_OVER = {
+            "aabc", "abbc", "abcc"
+    };
+
+    private int[][] randomBoard()
+    {
+        int[][] vals = new int[4][4];
+        for (int k = 0; k < 4; k++)
+            for (int m = 0; m < 4; m++)
+                vals[k][m] = gen.nextInt(3) == 0 ? 0 : 1 << gen.nextInt(4);
+        return vals;
+    }
+}
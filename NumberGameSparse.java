@@ -0,0 +1,528 @@
+package Project2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A NumberSlider for very large, mostly empty boards. Only the tiles are
+ * stored: each one is a long holding its flat row-major index
+ * row*width + col in the high bits and its exponent code in the low six
+ * bits (0 marks an empty cell, a code c holds the tile 2^(c-1)). The
+ * tiles array is kept sorted, so it lists the tiles row by row.
+ *
+ * A slide re-keys every tile by its line and its distance from the cell
+ * the line moves towards, sorts the keys and merges each line in one
+ * pass, then sorts the result back into row-major order. A left slide
+ * needs neither sort. A random tile is placed by a binary search for the
+ * k-th empty cell: before the tile at index i lie pos - i empty cells.
+ * Slides, placements and getStatus() therefore cost in the number of
+ * tiles rather than in the board area; only setValues() and copyValues()
+ * walk every cell.
+ *
+ * Tiles are drawn from the generator exactly as NumberGameArrayList
+ * draws them, so both engines play the same game from the same seed.
+ * Undo keeps the tiles of the board before each move.
+ */
+public class NumberGameSparse implements NumberSlider {
+    /** The largest board area, the flat index must fit above the code bits */
+    public static final long MAX_CELLS = 1L << 56;
+
+    private static final int CODE_BITS = 6;
+    private static final long CODE_MASK = (1 << CODE_BITS) - 1;
+
+    private long[] tiles = new long[16];
+    private int count;
+    private long[] keys = new long[16];
+    private long[] spare = new long[16];
+    private int height;
+    private int width;
+    private long area;
+    private int winningValue;
+    private int winningCode;
+    private final ArrayDeque<long[]> undoList = new ArrayDeque<>();
+    private int undoDepth = Integer.MAX_VALUE;
+    private int moveCount;
+    private final RandomGenerator random;
+
+    /**
+     * Create a game that places tiles with an unseeded generator
+     */
+    public NumberGameSparse() {
+        this(new SplitMixRandom());
+    }
+
+    /**
+     * Create a game whose tiles are reproducible from a seed
+     * @param seed the seed of the tile generator
+     */
+    public NumberGameSparse(long seed) {
+        this(new SplitMixRandom(seed));
+    }
+
+    /**
+     * Create a game that draws every random tile from the given generator,
+     * which is used without synchronization
+     * @param random the source of the tile positions and values
+     */
+    public NumberGameSparse(RandomGenerator random) {
+        if (random == null) {
+            throw new IllegalArgumentException();
+        }
+        this.random = random;
+    }
+
+    /**
+     * Reset the game logic to handle a board of a given dimension. No
+     * memory is taken by the empty cells, so the board may be far larger
+     * than a dense engine could hold.
+     *
+     * @param height the number of rows in the board
+     * @param width the number of columns in the board
+     * @param winningValue the value that must appear on the board to
+     *                     win the game
+     * @throws IllegalArgumentException when the winning value is not power of two
+     *  or is negative, or the board is empty or has more than MAX_CELLS cells
+     */
+    @Override
+    public void resizeBoard(int height, int width, int winningValue) {
+        if (winningValue <= 0 || (winningValue & winningValue - 1) != 0 || height <= 0 || width <= 0
+                || (long) height * width > MAX_CELLS) {
+            throw new IllegalArgumentException();
+        }
+        this.height = height;
+        this.width = width;
+        this.area = (long) height * width;
+        this.winningValue = winningValue;
+        this.winningCode = code(winningValue);
+        count = 0;
+        undoList.clear();
+        moveCount = 0;
+    }
+
+    /**
+     * Remove all numbered tiles from the board and place
+     * TWO non-zero values at random location
+     */
+    @Override
+    public void reset() {
+        count = 0;
+        undoList.clear();
+        moveCount = 0;
+        placeRandomValue();
+        placeRandomValue();
+    }
+
+    /**
+     * Set the game board to the desired values given in the 2D array.
+     * Every cell of the array is read, this costs in the board area.
+     * @param ref
+     * @throws IllegalArgumentException when a value is neither zero nor a
+     *  positive power of two
+     */
+    @Override
+    public void setValues(int[][] ref) {
+        int n = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int value = ref[row][col];
+                if (value < 0 || (value & value - 1) != 0) {
+                    throw new IllegalArgumentException();
+                }
+                if (value != 0) {
+                    n++;
+                }
+            }
+        }
+        ensureCapacity(n);
+        count = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (ref[row][col] != 0) {
+                    tiles[count++] = tile((long) row * width + col, code(ref[row][col]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert one random tile into an empty spot on the board.
+     *
+     * @return a Cell object with its row, column, and value attributes
+     *  initialized properly
+     *
+     * @throws IllegalStateException when the board has no empty cell
+     */
+    @Override
+    public Cell placeRandomValue() {
+        long pos = spawnTile();
+        return new Cell((int) (pos / width), (int) (pos % width), value(tiles[find(pos)]));
+    }
+
+    /**
+     * Place a 2 or a 4 on a random empty cell, drawing from the generator
+     * as NumberGameArrayList does
+     *
+     * @return the flat index of the new tile
+     * @throws IllegalStateException when the board has no empty cell
+     */
+    private long spawnTile() {
+        long empty = area - count;
+        if (empty == 0) {
+            throw new IllegalStateException();
+        }
+        int randomPower = 1 + random.nextInt(2);
+        long k = empty <= Integer.MAX_VALUE ? random.nextInt((int) empty) : random.nextLong(empty);
+        // the first tile with more than k empty cells before it
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (position(tiles[mid]) - mid > k) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        long pos = k + lo;
+        ensureCapacity(count + 1);
+        System.arraycopy(tiles, lo, tiles, lo + 1, count - lo);
+        tiles[lo] = tile(pos, randomPower + 1);
+        count++;
+        return pos;
+    }
+
+    @Override
+    public boolean slide(SlideDirection dir) {
+        return slide(dir, null);
+    }
+
+    /**
+     * Slide all the tiles in the board in the requested direction and
+     * describe what moved
+     * @param dir move direction of the tiles
+     * @param result cleared and filled with the tiles that moved, the
+     *               score and the spawned tile, or null
+     *
+     * @return true when the board changes
+     */
+    @Override
+    public boolean slide(SlideDirection dir, MoveResult result) {
+        if (result != null) {
+            result.clear();
+        }
+        boolean horizontal = dir == SlideDirection.LEFT || dir == SlideDirection.RIGHT;
+        boolean reverse = dir == SlideDirection.RIGHT || dir == SlideDirection.DOWN;
+        int length = horizontal ? width : height;
+        if (keys.length < count) {
+            keys = new long[tiles.length];
+        }
+        if (spare.length < count) {
+            spare = new long[tiles.length];
+        }
+        // key every tile by its line, then by its distance from the cell
+        // the line moves towards
+        for (int i = 0; i < count; i++) {
+            long pos = position(tiles[i]);
+            long along = horizontal ? pos % width : pos / width;
+            long line = horizontal ? pos / width : pos % width;
+            long k = reverse ? length - 1 - along : along;
+            keys[i] = tile(line * length + k, tileCode(tiles[i]));
+        }
+        if (dir != SlideDirection.LEFT) {
+            Arrays.sort(keys, 0, count);
+        }
+
+        long[] next = spare;
+        int n = 0;
+        int score = 0;
+        long line = -1;
+        long out = 0;
+        int pending = 0;
+        long pendingFrom = 0;
+        for (int i = 0; i < count; i++) {
+            long key = position(keys[i]);
+            int code = tileCode(keys[i]);
+            if (key / length != line) {
+                if (pending != 0) {
+                    n = emit(next, n, horizontal, reverse, length, line, pendingFrom, out, pending, result);
+                }
+                line = key / length;
+                out = 0;
+                pending = 0;
+            }
+            long in = key % length;
+            if (code == pending) {
+                // merge with the waiting tile, the result can't merge again
+                score += 2 * decode(code);
+                if (result != null) {
+                    track(result, horizontal, reverse, length, line, pendingFrom, out, code, true);
+                    track(result, horizontal, reverse, length, line, in, out, code, true);
+                }
+                next[n++] = tile(cell(horizontal, reverse, length, line, out), code + 1);
+                out++;
+                pending = 0;
+            } else {
+                if (pending != 0) {
+                    n = emit(next, n, horizontal, reverse, length, line, pendingFrom, out, pending, result);
+                    out++;
+                }
+                pending = code;
+                pendingFrom = in;
+            }
+        }
+        if (pending != 0) {
+            n = emit(next, n, horizontal, reverse, length, line, pendingFrom, out, pending, result);
+        }
+        if (dir != SlideDirection.LEFT) {
+            Arrays.sort(next, 0, n);
+        }
+
+        if (n == count && Arrays.equals(tiles, 0, count, next, 0, n)) {
+            return false;
+        }
+        if (undoDepth > 0) {
+            if (undoList.size() == undoDepth) {
+                undoList.removeFirst();
+            }
+            undoList.addLast(Arrays.copyOf(tiles, count));
+        }
+        spare = tiles;
+        tiles = next;
+        count = n;
+        moveCount++;
+        long pos = spawnTile();
+        if (result != null) {
+            result.finish(score, (int) (pos / width), (int) (pos % width), value(tiles[find(pos)]));
+        }
+        return true;
+    }
+
+    /**
+     * Write an unmerged tile at its target in the line, listing it in the
+     * result when it left its cell
+     *
+     * @return the number of tiles written so far
+     */
+    private int emit(long[] next, int n, boolean horizontal, boolean reverse, int length, long line,
+                     long from, long to, int code, MoveResult result) {
+        if (result != null && from != to) {
+            track(result, horizontal, reverse, length, line, from, to, code, false);
+        }
+        next[n] = tile(cell(horizontal, reverse, length, line, to), code);
+        return n + 1;
+    }
+
+    private void track(MoveResult result, boolean horizontal, boolean reverse, int length, long line,
+                       long from, long to, int code, boolean merged) {
+        long source = cell(horizontal, reverse, length, line, from);
+        long target = cell(horizontal, reverse, length, line, to);
+        result.addTile((int) (source / width), (int) (source % width), (int) (target / width),
+                (int) (target % width), decode(code), merged);
+    }
+
+    /**
+     * @param k the distance from the cell the line moves towards
+     * @return the flat index of the k-th cell of a line
+     */
+    private long cell(boolean horizontal, boolean reverse, int length, long line, long k) {
+        long along = reverse ? length - 1 - k : k;
+        return horizontal ? line * width + along : along * width + line;
+    }
+
+    /**
+     * @return an arraylist of Cells. Each cell holds the (row,column) and
+     * value of a tile
+     */
+    @Override
+    public ArrayList<Cell> getNonEmptyTiles() {
+        ArrayList<Cell> list = new ArrayList<Cell>(count);
+        forEachTile((row, column, value) -> list.add(new Cell(row, column, value)));
+        return list;
+    }
+
+    /**
+     * Call the visitor once for every non-empty tile, row by row
+     * @param visitor receives the row, column and value of every tile
+     */
+    @Override
+    public void forEachTile(TileVisitor visitor) {
+        for (int i = 0; i < count; i++) {
+            long pos = position(tiles[i]);
+            visitor.visitTile((int) (pos / width), (int) (pos % width), value(tiles[i]));
+        }
+    }
+
+    /**
+     * Copy the value of every cell row by row into the buffer. Every cell
+     * is written, this costs in the board area.
+     * @param buffer an array of at least height * width values
+     * @throws IllegalArgumentException when the buffer is too short
+     */
+    @Override
+    public void copyValues(int[] buffer) {
+        if (buffer.length < area) {
+            throw new IllegalArgumentException("Buffer holds " + buffer.length + " of " + area + " cells");
+        }
+        Arrays.fill(buffer, 0, (int) area, 0);
+        for (int i = 0; i < count; i++) {
+            buffer[(int) position(tiles[i])] = value(tiles[i]);
+        }
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Return the current state of the game. The board can only be lost
+     * when it is full, the neighbours are only compared then.
+     * @return one of the possible values of GameStatus enum
+     */
+    @Override
+    public GameStatus getStatus() {
+        for (int i = 0; i < count; i++) {
+            if (tileCode(tiles[i]) == winningCode) {
+                return GameStatus.USER_WON;
+            }
+        }
+        if (count < area) {
+            return GameStatus.IN_PROGRESS;
+        }
+        // on a full board the tile at index i is cell i
+        for (int i = 0; i < count; i++) {
+            int code = tileCode(tiles[i]);
+            if ((i % width < width - 1 && tileCode(tiles[i + 1]) == code)
+                    || (i + width < count && tileCode(tiles[i + width]) == code)) {
+                return GameStatus.IN_PROGRESS;
+            }
+        }
+        return GameStatus.USER_LOST;
+    }
+
+    /**
+     * Undo the most recent action, i.e. restore the board to its previous
+     * state. Calling this method multiple times will ultimately restore
+     * the game to the very first initial state of the board holding two
+     * random values. Further attempt to undo beyond this state will throw
+     * an IllegalStateException.
+     *
+     * @throws IllegalStateException when undo is not possible
+     */
+    @Override
+    public void undo() {
+        if (undoList.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        long[] previous = undoList.removeLast();
+        ensureCapacity(previous.length);
+        System.arraycopy(previous, 0, tiles, 0, previous.length);
+        count = previous.length;
+        moveCount--;
+    }
+
+    /**
+     * Limit how many moves undo() can take back. Once the limit is
+     * reached every new move forgets the oldest one.
+     *
+     * @param depth the maximum number of moves kept for undo,
+     *              Integer.MAX_VALUE keeps every move
+     * @throws IllegalArgumentException when depth is negative
+     */
+    @Override
+    public void setUndoDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException();
+        }
+        undoDepth = depth;
+        while (undoList.size() > depth) {
+            undoList.removeFirst();
+        }
+    }
+
+    public int getUndoSize() {
+        return undoList.size();
+    }
+
+    @Override
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getWinningValue() {
+        return winningValue;
+    }
+
+    /**
+     * @return the number of tiles on the board
+     */
+    public int getTileCount() {
+        return count;
+    }
+
+    public int getHighest() {
+        int highest = 0;
+        for (int i = 0; i < count; i++) {
+            highest = Math.max(highest, tileCode(tiles[i]));
+        }
+        return decode(highest);
+    }
+
+    /**
+     * @return the index of the tile at a flat cell index, which must hold one
+     */
+    private int find(long pos) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (position(tiles[mid]) < pos) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int n) {
+        if (tiles.length < n) {
+            tiles = Arrays.copyOf(tiles, Math.max(n, 2 * tiles.length));
+        }
+    }
+
+    private static long tile(long pos, int code) {
+        return pos << CODE_BITS | code;
+    }
+
+    private static long position(long tile) {
+        return tile >>> CODE_BITS;
+    }
+
+    private static int tileCode(long tile) {
+        return (int) (tile & CODE_MASK);
+    }
+
+    private static int value(long tile) {
+        return decode(tileCode(tile));
+    }
+
+    /**
+     * @param value zero or a power of two
+     * @return 0 for an empty cell, log2(value) + 1 for a tile
+     */
+    private static int code(int value) {
+        return value == 0 ? 0 : Integer.numberOfTrailingZeros(value) + 1;
+    }
+
+    private static int decode(int code) {
+        return code == 0 ? 0 : 1 << (code - 1);
+    }
+}
@@ -0,0 +1,146 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class NumberGameSparseTester {
+    private final static int GAME_COUNT = 300;
+
+    @Test(timeout = 10000)
+    public void gamesShallMatchArrayListEngine()
+    {
+        Random gen = new Random(7);
+        MoveResult expected = new MoveResult();
+        MoveResult result = new MoveResult();
+        for (int count = 0; count < GAME_COUNT; count++) {
+            long seed = gen.nextLong();
+            int height = 1 + gen.nextInt(6);
+            int width = 2 + gen.nextInt(5);
+            int goal = 1 << (3 + gen.nextInt(6));
+            NumberGameArrayList reference = new NumberGameArrayList(seed);
+            NumberGameSparse game = new NumberGameSparse(seed);
+            reference.resizeBoard(height, width, goal);
+            game.resizeBoard(height, width, goal);
+            reference.reset();
+            game.reset();
+            assertSameBoard(reference, game);
+            for (int step = 0; step < 200 && reference.getStatus() == GameStatus.IN_PROGRESS; step++) {
+                if (gen.nextInt(10) == 0) {
+                    assertEquals(undone(reference), undone(game));
+                } else {
+                    SlideDirection dir = SlideDirection.values()[gen.nextInt(4)];
+                    assertEquals(reference.slide(dir, expected), game.slide(dir, result));
+                    assertSameResult(expected, result);
+                }
+                assertSameBoard(reference, game);
+            }
+        }
+    }
+
+    @Test
+    public void randomValueShallBePlacedOnEmptySpot()
+    {
+        NumberGameSparse game = new NumberGameSparse();
+        game.resizeBoard(3, 5, 1024);
+        game.setValues(new int[3][5]);
+        for (int k = 0; k < 15; k++) {
+            Cell c = game.placeRandomValue();
+            assertTrue(c.getValue() == 2 || c.getValue() == 4);
+            assertEquals(k + 1, game.getNonEmptyTiles().size());
+        }
+        try {
+            game.placeRandomValue();
+            fail("placeRandomValue() should fail on a full board");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void hugeBoardShallPlayInTileTime()
+    {
+        NumberGameSparse game = new NumberGameSparse(11);
+        game.resizeBoard(10000, 10000, 1 << 20);
+        game.reset();
+        Random gen = new Random(11);
+        List<Cell> before = null;
+        for (int step = 0; step < 5000; step++) {
+            before = game.getNonEmptyTiles();
+            while (!game.slide(SlideDirection.values()[gen.nextInt(4)])) {
+            }
+        }
+        assertEquals(GameStatus.IN_PROGRESS, game.getStatus());
+        assertEquals(5000, game.getMoveCount());
+
+        List<Cell> tiles = game.getNonEmptyTiles();
+        assertEquals(game.getTileCount(), tiles.size());
+        for (int k = 1; k < tiles.size(); k++) {
+            Cell a = tiles.get(k - 1);
+            Cell b = tiles.get(k);
+            assertTrue(a.getRow() < b.getRow() || (a.getRow() == b.getRow() && a.getColumn() < b.getColumn()));
+        }
+
+        /* after sliding up every column is packed against the top edge,
+           apart from the spawned tile */
+        MoveResult result = new MoveResult();
+        int moves = game.slide(SlideDirection.UP, result) ? 1 : 0;
+        Cell spawned = result.getSpawned();
+        Set<Long> cells = new HashSet<>();
+        for (Cell c : game.getNonEmptyTiles())
+            if (moves == 0 || c.getRow() != spawned.getRow() || c.getColumn() != spawned.getColumn())
+                cells.add(c.getRow() * 10000L + c.getColumn());
+        for (long cell : cells)
+            assertTrue(cell < 10000 || cells.contains(cell - 10000));
+
+        for (int k = 0; k <= moves; k++)
+            game.undo();
+        List<Cell> after = game.getNonEmptyTiles();
+        assertEquals(before.size(), after.size());
+        for (int k = 0; k < after.size(); k++)
+            assertEquals(0, before.get(k).compareTo(after.get(k)));
+    }
+
+    private static boolean undone(NumberSlider game)
+    {
+        try {
+            game.undo();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static void assertSameBoard(NumberGameArrayList reference, NumberGameSparse game)
+    {
+        int[] expected = new int[reference.getHeight() * reference.getWidth()];
+        int[] actual = new int[expected.length];
+        reference.copyValues(expected);
+        game.copyValues(actual);
+        assertArrayEquals(expected, actual);
+        assertEquals(reference.getStatus(), game.getStatus());
+        assertEquals(reference.getMoveCount(), game.getMoveCount());
+        assertEquals(reference.getHighest(), game.getHighest());
+    }
+
+    private static void assertSameResult(MoveResult expected, MoveResult result)
+    {
+        assertEquals(expected.isMoved(), result.isMoved());
+        assertEquals(expected.getScore(), result.getScore());
+        assertEquals(expected.getTileCount(), result.getTileCount());
+        for (int t = 0; t < result.getTileCount(); t++) {
+            assertEquals(expected.getFromRow(t), result.getFromRow(t));
+            assertEquals(expected.getFromColumn(t), result.getFromColumn(t));
+            assertEquals(expected.getToRow(t), result.getToRow(t));
+            assertEquals(expected.getToColumn(t), result.getToColumn(t));
+            assertEquals(expected.getValue(t), result.getValue(t));
+            assertEquals(expected.isMerged(t), result.isMerged(t));
+        }
+        Cell a = expected.getSpawned();
+        Cell b = result.getSpawned();
+        assertEquals(a.getRow(), b.getRow());
+        assertEquals(a.getColumn(), b.getColumn());
+        assertEquals(a.getValue(), b.getValue());
+    }
+}
@@ -1,8 +1,10 @@
 package Project2;
 
-import java.util.ArrayList;
-
-public interface NumberSlider {
+/**
+ * A game engine: a PlayableGame that can also be sized, filled and
+ * given random tiles by its owner.
+ */
+public interface NumberSlider extends PlayableGame {
     /**
      * Reset the game logic to handle a board of a given dimension
      *
@@ -43,36 +45,13 @@ public interface NumberSlider {
     public Cell placeRandomValue();
 
     /**
-     * Slide all the tiles in the board in the requested direction
-     * The value should be the number 2 or 4 (random)
-     * @param dir move direction of the tiles
-     *
-     * @return true when the board changes
-     */
-    public boolean slide(SlideDirection dir);
-
-
-    /**
-     *
-     * @return an arraylist of Cells. Each cell holds the (row,column) and
-     * value of a tile
-     */
-    public ArrayList<Cell> getNonEmptyTiles();
-
-    /**
-     * Return the current state of the game
-     * @return one of the possible values of GameStatus enum
-     */
-    public GameStatus getStatus();
-
-    /**
-     * Undo the most recent action, i.e. restore the board to its previous
-     * state. Calling this method multiple times will ultimately restore
-     * the game to the very first initial state of the board holding two
-     * random values. Further attempt to undo beyond this state will throw
-     * an IllegalStateException.
+     * Limit how many moves undo can take back. Once the limit is reached
+     * every new move forgets the oldest one, so long games keep a bounded
+     * history. Games start with no limit.
      *
-     * @throws IllegalStateException when undo is not possible
+     * @param depth the maximum number of moves kept for undo,
+     *              Integer.MAX_VALUE keeps every move
+     * @throws IllegalArgumentException when depth is negative
      */
-    public void undo();
-}
\ No newline at end of file
+    public void setUndoDepth(int depth);
+}
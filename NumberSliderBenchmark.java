@@ -0,0 +1,183 @@
+package Project2;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the NumberSlider operations, parameterized over the
+ * engine, the board size and the fraction of cells holding a tile.
+ * Run main() to measure throughput and average time of every operation
+ * together with the allocation rate reported by the gc profiler.
+ *
+ * Every benchmark starts from the same seeded board. Moves are undone
+ * and placed tiles are cleared again so the fill density stays put for
+ * the whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberSliderBenchmark {
+    private static final SlideDirection[] DIRECTIONS = SlideDirection.values();
+
+    @Param({"arraylist"})
+    private String engine;
+
+    @Param({"4", "16", "64", "128"})
+    private int size;
+
+    @Param({"0.25", "0.5", "0.9"})
+    private double density;
+
+    private NumberSlider game;
+    private int[][] initial;
+    private int[] buffer;
+    private int direction;
+    private int placed;
+    private int placeBudget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = SimulationRunner.createEngine(engine, new SplittableRandom(42));
+        game.resizeBoard(size, size, 1 << 14);
+        initial = fillBoard(size, density, 42);
+        game.setValues(initial);
+        buffer = new int[size * size];
+        placed = 0;
+        int empty = 0;
+        for (int[] row : initial)
+            for (int v : row)
+                if (v == 0)
+                    empty++;
+        placeBudget = Math.max(1, empty / 2);
+    }
+
+    /**
+     * A square board holding random tiles from 2 to 64 on the given
+     * fraction of its cells
+     */
+    static int[][] fillBoard(int size, double density, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] board = new int[size][size];
+        for (int k = 0; k < size; k++)
+            for (int m = 0; m < size; m++)
+                if (random.nextDouble() < density)
+                    board[k][m] = 1 << (1 + random.nextInt(6));
+        return board;
+    }
+
+    /**
+     * slide() in the next direction, followed by undo() so the fill stays
+     * the same across invocations
+     */
+    @Benchmark
+    public boolean slideAndUndo() {
+        SlideDirection dir = DIRECTIONS[direction++ & 3];
+        boolean moved = game.slide(dir);
+        if (moved)
+            game.undo();
+        return moved;
+    }
+
+    /**
+     * placeRandomValue(), with the board restored once half of its empty
+     * cells are used, the restore cost is spread over many placements
+     */
+    @Benchmark
+    public Cell placeRandomValue() {
+        if (placed++ == placeBudget) {
+            game.setValues(initial);
+            placed = 1;
+        }
+        return game.placeRandomValue();
+    }
+
+    @Benchmark
+    public GameStatus getStatus() {
+        return game.getStatus();
+    }
+
+    @Benchmark
+    public ArrayList<Cell> getNonEmptyTiles() {
+        return game.getNonEmptyTiles();
+    }
+
+    @Benchmark
+    public int[] copyValues() {
+        game.copyValues(buffer);
+        return buffer;
+    }
+
+    /**
+     * State for undo(): every invocation gets a freshly played move to
+     * take back on a game of its own. Invocation level setup adds
+     * overhead on the smallest boards, compare undo against slideAndUndo
+     * there.
+     */
+    @State(Scope.Thread)
+    public static class UndoState {
+        private NumberSlider game;
+        private int[][] initial;
+        private int direction;
+
+        @Setup(Level.Trial)
+        public void setUp(NumberSliderBenchmark bench) {
+            game = SimulationRunner.createEngine(bench.engine, new SplittableRandom(42));
+            game.resizeBoard(bench.size, bench.size, 1 << 14);
+            initial = fillBoard(bench.size, bench.density, 42);
+            game.setValues(initial);
+        }
+
+        @Setup(Level.Invocation)
+        public void playMove() {
+            for (int k = 0; k < 4; k++)
+                if (game.slide(DIRECTIONS[direction++ & 3]))
+                    return;
+            throw new IllegalStateException("no move left on the benchmark board");
+        }
+    }
+
+    @Benchmark
+    public void undo(UndoState state) {
+        state.game.undo();
+    }
+
+    public static void main(String[] arg) throws RunnerException {
+        String include = NumberSliderBenchmark.class.getSimpleName();
+        Options general = new OptionsBuilder()
+                .include(include)
+                .param("engine", "arraylist")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(general).run();
+
+        /* the bitboard engine only plays on 4x4 boards */
+        Options bitboard = new OptionsBuilder()
+                .include(include)
+                .param("engine", "bitboard")
+                .param("size", "4")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(bitboard).run();
+
+        /* large, nearly empty boards, where the sparse engine only pays for its tiles */
+        Options sparse = new OptionsBuilder()
+                .include(include)
+                .param("engine", "arraylist", "sparse")
+                .param("size", "128", "1024")
+                .param("density", "0.001", "0.01")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(sparse).run();
+    }
+}
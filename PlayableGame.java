@@ -0,0 +1,89 @@
+package Project2;
+
+import java.util.ArrayList;
+
+/**
+ * The part of a game a player needs: read the board, slide and undo.
+ * Move policies only get this view, so a game that records its moves,
+ * like JournaledGame, can be played without being set up from outside.
+ */
+public interface PlayableGame {
+    /**
+     * Slide all the tiles in the board in the requested direction
+     * The value should be the number 2 or 4 (random)
+     * @param dir move direction of the tiles
+     *
+     * @return true when the board changes
+     */
+    public boolean slide(SlideDirection dir);
+
+    /**
+     * Slide like slide(SlideDirection) and describe the move, so a front
+     * end can redraw only the cells it touched
+     * @param dir move direction of the tiles
+     * @param result cleared, then filled with the tiles that moved, the
+     *               score gained and the spawned tile. null skips the
+     *               description.
+     *
+     * @return true when the board changes
+     */
+    public boolean slide(SlideDirection dir, MoveResult result);
+
+    /**
+     *
+     * @return an arraylist of Cells. Each cell holds the (row,column) and
+     * value of a tile
+     */
+    public ArrayList<Cell> getNonEmptyTiles();
+
+    /**
+     * Call the visitor once for every non-empty tile, row by row, without
+     * allocating anything. The board must not be changed by the visitor.
+     *
+     * @param visitor receives the row, column and value of every tile
+     */
+    public void forEachTile(TileVisitor visitor);
+
+    /**
+     * Copy the value of every cell, empty cells included, row by row into
+     * the buffer. Cell (row, column) lands at index row * getWidth() +
+     * column.
+     *
+     * @param buffer an array of at least getHeight() * getWidth() values
+     * @throws IllegalArgumentException when the buffer is too short
+     */
+    public void copyValues(int[] buffer);
+
+    /**
+     * @return the number of rows in the board
+     */
+    public int getHeight();
+
+    /**
+     * @return the number of columns in the board
+     */
+    public int getWidth();
+
+    /**
+     * @return the number of moves played since the last reset, minus the
+     *  moves taken back by undo
+     */
+    public int getMoveCount();
+
+    /**
+     * Return the current state of the game
+     * @return one of the possible values of GameStatus enum
+     */
+    public GameStatus getStatus();
+
+    /**
+     * Undo the most recent action, i.e. restore the board to its previous
+     * state. Calling this method multiple times will ultimately restore
+     * the game to the very first initial state of the board holding two
+     * random values. Further attempt to undo beyond this state will throw
+     * an IllegalStateException.
+     *
+     * @throws IllegalStateException when undo is not possible
+     */
+    public void undo();
+}
@@ -0,0 +1,152 @@
+package Project2;
+
+/**
+ * Precomputed slide results for a single line of tiles. A line of up to
+ * MAX_LENGTH cells is packed into an int, four bits per cell, with the
+ * first cell of the line in the lowest nibble. Each cell holds an
+ * exponent code: 0 marks an empty cell and a code c holds the tile
+ * 2^(c-1).
+ *
+ * For every packed line the table keeps the line slid towards its first
+ * cell, the line slid towards its last cell, and the sum of the tiles
+ * created by merges, so moving a line is a single array lookup. Tables
+ * are built lazily the first time a line length is requested; a line of
+ * five cells needs 2^20 entries.
+ */
+public class RowTransitionTable {
+    public static final int MAX_LENGTH = 5;
+    public static final int MAX_CODE = 15;
+
+    private static final RowTransitionTable[] TABLES = new RowTransitionTable[MAX_LENGTH + 1];
+
+    private final int length;
+    private final int[] left;
+    private final int[] right;
+    private final int[] score;
+
+    private RowTransitionTable(int length) {
+        this.length = length;
+        int size = 1 << (4 * length);
+        left = new int[size];
+        right = new int[size];
+        score = new int[size];
+        int[] line = new int[length];
+        for (int row = 0; row < size; row++) {
+            for (int k = 0; k < length; k++) {
+                line[k] = (row >>> (4 * k)) & 0xF;
+            }
+            int gained = 0;
+            int num = 0;
+            int last = 0;
+            int packed = 0;
+            for (int k = 0; k < length; k++) {
+                if (line[k] == 0) {
+                    continue;
+                }
+                if (line[k] == last && last < MAX_CODE) {
+                    /* replace the previous tile by the merged one */
+                    packed += 1 << (4 * (num - 1));
+                    gained += 1 << last;
+                    last = 0;
+                } else {
+                    packed |= line[k] << (4 * num);
+                    last = line[k];
+                    num++;
+                }
+            }
+            left[row] = packed;
+            score[row] = gained;
+            right[reverse(row, length)] = reverse(packed, length);
+        }
+    }
+
+    /**
+     * Return the table for lines of the given length, building it on
+     * first use
+     *
+     * @param length the number of cells in a line
+     * @return the shared table for that length
+     * @throws IllegalArgumentException when the length is not between 1
+     *  and MAX_LENGTH
+     */
+    public static synchronized RowTransitionTable forLength(int length) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException();
+        }
+        if (TABLES[length] == null) {
+            TABLES[length] = new RowTransitionTable(length);
+        }
+        return TABLES[length];
+    }
+
+    /**
+     * @return the number of cells in a line of this table
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @param row a packed line
+     * @return the line after sliding its tiles towards the first cell
+     */
+    public int slideLeft(int row) {
+        return left[row];
+    }
+
+    /**
+     * @param row a packed line
+     * @return the line after sliding its tiles towards the last cell
+     */
+    public int slideRight(int row) {
+        return right[row];
+    }
+
+    /**
+     * Merged tiles are the same whichever end the line slides to, so one
+     * score serves both directions
+     *
+     * @param row a packed line
+     * @return the sum of the tiles created by merges
+     */
+    public int score(int row) {
+        return score[row];
+    }
+
+    /**
+     * @param value a tile value
+     * @return the exponent code of the value, or -1 when the value is not
+     *  zero or a power of two below 2^MAX_CODE
+     */
+    public static int encode(int value) {
+        if (value == 0) {
+            return 0;
+        }
+        if (value < 0 || (value & value - 1) != 0) {
+            return -1;
+        }
+        int code = Integer.numberOfTrailingZeros(value) + 1;
+        return code <= MAX_CODE ? code : -1;
+    }
+
+    /**
+     * @param code an exponent code
+     * @return the tile value held by the code
+     */
+    public static int decode(int code) {
+        return code == 0 ? 0 : 1 << (code - 1);
+    }
+
+    /**
+     * @param row a packed line
+     * @param length the number of cells in the line
+     * @return the line with its cells in the opposite order
+     */
+    public static int reverse(int row, int length) {
+        int out = 0;
+        for (int k = 0; k < length; k++) {
+            out = (out << 4) | ((row >>> (4 * k)) & 0xF);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,338 @@
+package Project2;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The games hosted by a GameServer, by session id. The ids are split over
+ * a fixed number of stripes, each a plain map behind its own lock, so
+ * sessions created and looked up by different connections rarely wait
+ * for each other.
+ *
+ * The registry can keep the heap used by its games under a budget. Each
+ * stripe owns an equal share of it and keeps its games in least recently
+ * played order; when the share is exceeded the least recently played
+ * NumberGameArrayList games are saved off-heap, into a direct ByteBuffer
+ * holding NumberGameArrayList.save(ByteBuffer), and dropped from the
+ * heap. The next play() restores such a game, generator state included,
+ * so a client never sees the difference. Other engines always stay on
+ * the heap.
+ *
+ * Games are only reached through play(), which holds the lock of the
+ * session while the game is used.
+ */
+public class SessionRegistry {
+    private final Stripe[] stripes;
+    private final long stripeBudget;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong coldCount = new AtomicLong();
+    private final AtomicLong coldBytes = new AtomicLong();
+
+    private static class Stripe {
+        private final HashMap<Long, Session> sessions = new HashMap<>();
+        /** The sessions whose game is on the heap, least recently played first */
+        private final LinkedHashMap<Long, Session> hot = new LinkedHashMap<>(16, 0.75f, true);
+        private final AtomicLong hotBytes = new AtomicLong();
+    }
+
+    private static class Session {
+        private final long id;
+        private final ReentrantLock lock = new ReentrantLock();
+        /** The game while it is on the heap, guarded by lock */
+        private NumberSlider game;
+        /** The saved game while it is off the heap, guarded by lock */
+        private ByteBuffer cold;
+        /** The heap size counted for the game, guarded by lock */
+        private long bytes;
+        private boolean removed;
+
+        Session(long id, NumberSlider game) {
+            this.id = id;
+            this.game = game;
+        }
+    }
+
+    /**
+     * @param stripes the number of stripes, rounded up to a power of two
+     * @param heapBudget the heap bytes the games may hold before the least
+     *                   recently played ones are moved off-heap,
+     *                   Long.MAX_VALUE keeps every game on the heap
+     * @throws IllegalArgumentException when stripes or heapBudget is not
+     *  positive
+     */
+    public SessionRegistry(int stripes, long heapBudget) {
+        if (stripes <= 0 || heapBudget <= 0) {
+            throw new IllegalArgumentException("Invalid stripe count " + stripes + " or budget " + heapBudget);
+        }
+        int n = 1;
+        while (n < stripes) {
+            n <<= 1;
+        }
+        this.stripes = new Stripe[n];
+        for (int k = 0; k < this.stripes.length; k++) {
+            this.stripes[k] = new Stripe();
+        }
+        stripeBudget = heapBudget == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1, heapBudget / n);
+    }
+
+    public SessionRegistry(int stripes) {
+        this(stripes, Long.MAX_VALUE);
+    }
+
+    public SessionRegistry() {
+        this(64);
+    }
+
+    /**
+     * @param game a new game, only used through play() from now on
+     * @return the id of its session, never reused
+     */
+    public long add(NumberSlider game) {
+        long id = nextId.getAndIncrement();
+        Stripe stripe = stripe(id);
+        Session session = new Session(id, game);
+        session.lock.lock();
+        try {
+            synchronized (stripe) {
+                stripe.sessions.put(id, session);
+                if (game instanceof NumberGameArrayList) {
+                    stripe.hot.put(id, session);
+                }
+            }
+            account(stripe, session);
+        } finally {
+            session.lock.unlock();
+        }
+        evict(stripe, session);
+        return id;
+    }
+
+    /**
+     * Use the game of a session under its lock, bringing it back on the
+     * heap first when it was moved off
+     * @param id the session
+     * @param action what to do with the game, it must not keep it
+     * @return the result of the action
+     * @throws IllegalArgumentException when there is no such session
+     */
+    public <R> R play(long id, Function<NumberSlider, R> action) {
+        Stripe stripe = stripe(id);
+        Session session;
+        synchronized (stripe) {
+            session = stripe.sessions.get(id);
+            // mark the game as the most recently played
+            stripe.hot.get(id);
+        }
+        if (session == null) {
+            throw new IllegalArgumentException("no session");
+        }
+        R result;
+        session.lock.lock();
+        try {
+            if (session.removed) {
+                throw new IllegalArgumentException("no session");
+            }
+            if (session.game == null) {
+                rehydrate(stripe, session);
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+            result = action.apply(session.game);
+            account(stripe, session);
+        } finally {
+            session.lock.unlock();
+        }
+        evict(stripe, session);
+        return result;
+    }
+
+    /**
+     * @return true when the session is open
+     */
+    public boolean contains(long id) {
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            return stripe.sessions.containsKey(id);
+        }
+    }
+
+    /**
+     * Close a session and release its game
+     * @return false when there was no such session
+     */
+    public boolean remove(long id) {
+        Stripe stripe = stripe(id);
+        Session session;
+        synchronized (stripe) {
+            session = stripe.sessions.remove(id);
+            stripe.hot.remove(id);
+        }
+        if (session == null) {
+            return false;
+        }
+        session.lock.lock();
+        try {
+            session.removed = true;
+            stripe.hotBytes.addAndGet(-session.bytes);
+            session.bytes = 0;
+            session.game = null;
+            if (session.cold != null) {
+                coldCount.decrementAndGet();
+                coldBytes.addAndGet(-session.cold.capacity());
+                session.cold = null;
+            }
+        } finally {
+            session.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of open sessions, counted stripe by stripe
+     */
+    public int size() {
+        int n = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                n += stripe.sessions.size();
+            }
+        }
+        return n;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return the number of plays that found their game on the heap
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of plays that had to restore their game
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of games moved off-heap so far
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of games currently off-heap
+     */
+    public long getColdCount() {
+        return coldCount.get();
+    }
+
+    /**
+     * @return the off-heap bytes held by the games moved there
+     */
+    public long getColdBytes() {
+        return coldBytes.get();
+    }
+
+    /**
+     * @return the estimated heap bytes of the games on the heap, as
+     *  counted after their last play
+     */
+    public long getHotBytes() {
+        long n = 0;
+        for (Stripe stripe : stripes) {
+            n += stripe.hotBytes.get();
+        }
+        return n;
+    }
+
+    /**
+     * Count the current heap size of a game against its stripe. Called
+     * with the session locked.
+     */
+    private static void account(Stripe stripe, Session session) {
+        if (!(session.game instanceof NumberGameArrayList)) {
+            return;
+        }
+        long size = ((NumberGameArrayList) session.game).getHeapSize();
+        stripe.hotBytes.addAndGet(size - session.bytes);
+        session.bytes = size;
+    }
+
+    private void rehydrate(Stripe stripe, Session session) {
+        NumberGameArrayList game = new NumberGameArrayList();
+        ByteBuffer saved = session.cold;
+        saved.clear();
+        game.restore(saved);
+        session.game = game;
+        session.cold = null;
+        coldCount.decrementAndGet();
+        coldBytes.addAndGet(-saved.capacity());
+        synchronized (stripe) {
+            stripe.hot.put(session.id, session);
+        }
+    }
+
+    /**
+     * Move the least recently played games of a stripe off-heap until the
+     * stripe is within its budget. Games in use are skipped, and so is the
+     * game just played, so a single large game may exceed the budget.
+     */
+    private void evict(Stripe stripe, Session current) {
+        while (stripe.hotBytes.get() > stripeBudget) {
+            Session victim = null;
+            synchronized (stripe) {
+                Iterator<Session> eldest = stripe.hot.values().iterator();
+                while (eldest.hasNext()) {
+                    Session s = eldest.next();
+                    if (s != current && s.lock.tryLock()) {
+                        eldest.remove();
+                        victim = s;
+                        break;
+                    }
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            try {
+                // a game never sized has nothing to save
+                if (!victim.removed && victim.game != null && victim.game.getHeight() > 0) {
+                    NumberGameArrayList game = (NumberGameArrayList) victim.game;
+                    ByteBuffer saved = ByteBuffer.allocateDirect(game.getSaveSize());
+                    game.save(saved);
+                    victim.cold = saved;
+                    victim.game = null;
+                    stripe.hotBytes.addAndGet(-victim.bytes);
+                    victim.bytes = 0;
+                    coldCount.incrementAndGet();
+                    coldBytes.addAndGet(saved.capacity());
+                    evictions.increment();
+                }
+            } finally {
+                victim.lock.unlock();
+            }
+        }
+    }
+
+    private Stripe stripe(long id) {
+        // consecutive ids land on different stripes
+        long h = id * 0x9e3779b97f4a7c15L;
+        return stripes[(int) (h >>> 40) & (stripes.length - 1)];
+    }
+}
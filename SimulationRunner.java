@@ -0,0 +1,334 @@
+package Project2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays many games without a user interface and reports how fast they
+ * ran and how they ended. Games are split across a fork-join pool; each
+ * leaf task owns one engine, one policy and one random generator, split
+ * from the seed in a fixed pattern so a run is reproducible from its
+ * seed whatever the thread count.
+ *
+ * With --journal every game is played on a JournaledGame with its own
+ * seed and appended to a MoveJournal, so any of them can be replayed.
+ *
+ * Usage: SimulationRunner [--games N] [--size ROWSxCOLS] [--goal G]
+ *        [--engine arraylist|bitboard|sparse] [--policy random|corner|expectimax|montecarlo]
+ *        [--threads T] [--seed S] [--journal FILE]
+ */
+public class SimulationRunner {
+    /** The number of leaf batches a run is split into, enough to balance many threads */
+    private static final int LEAF_COUNT = 256;
+
+    private int games = 10000;
+    private int height = 4;
+    private int width = 4;
+    private int goal = 2048;
+    private String engine = "arraylist";
+    private String policy = "random";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+    private Path journalPath;
+    private MoveJournal journal;
+
+    /**
+     * Totals of a batch of games, merged up the fork-join tree
+     */
+    public static class Stats {
+        private long games;
+        private long moves;
+        private final long[] statusCounts = new long[GameStatus.values().length];
+        private final long[] highestCounts = new long[33];
+
+        private void add(GameStatus status, int highest, long moves) {
+            games++;
+            this.moves += moves;
+            statusCounts[status.ordinal()]++;
+            highestCounts[highest == 0 ? 0 : Integer.numberOfTrailingZeros(highest) + 1]++;
+        }
+
+        private Stats merge(Stats other) {
+            games += other.games;
+            moves += other.moves;
+            for (int k = 0; k < statusCounts.length; k++) {
+                statusCounts[k] += other.statusCounts[k];
+            }
+            for (int k = 0; k < highestCounts.length; k++) {
+                highestCounts[k] += other.highestCounts[k];
+            }
+            return this;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        /**
+         * @param status a final game status
+         * @return the number of games that ended with that status
+         */
+        public long getStatusCount(GameStatus status) {
+            return statusCounts[status.ordinal()];
+        }
+
+        /**
+         * @param tile a power of two, or 0 for games that ended on an empty
+         *             board
+         * @return the number of games whose highest tile was that tile
+         */
+        public long getHighestCount(int tile) {
+            return highestCounts[tile == 0 ? 0 : Integer.numberOfTrailingZeros(tile) + 1];
+        }
+    }
+
+    private class GameBatch extends RecursiveTask<Stats> {
+        private static final long serialVersionUID = 1L;
+
+        private final int count;
+        private final SplittableRandom random;
+        private final int threshold;
+
+        GameBatch(int count, SplittableRandom random, int threshold) {
+            this.count = count;
+            this.random = random;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (count > threshold) {
+                GameBatch left = new GameBatch(count / 2, random.split(), threshold);
+                GameBatch right = new GameBatch(count - count / 2, random.split(), threshold);
+                left.fork();
+                return right.compute().merge(left.join());
+            }
+            if (journal != null) {
+                return playJournaled();
+            }
+            NumberSlider game = createEngine(engine, random.split());
+            MovePolicy player = createPolicy(policy, height, width, random.split());
+            game.setUndoDepth(0);
+            game.resizeBoard(height, width, goal);
+            Stats stats = new Stats();
+            for (int k = 0; k < count; k++) {
+                game.reset();
+                long moves = 0;
+                while (game.getStatus() == GameStatus.IN_PROGRESS && player.playMove(game)) {
+                    moves++;
+                }
+                stats.add(game.getStatus(), highestTile(game), moves);
+            }
+            return stats;
+        }
+
+        private Stats playJournaled() {
+            SplittableRandom seeds = random.split();
+            MovePolicy player = createPolicy(policy, height, width, random.split());
+            Stats stats = new Stats();
+            for (int k = 0; k < count; k++) {
+                JournaledGame game = new JournaledGame(seeds.nextLong(), height, width, goal, 0,
+                        JournaledGame.DEFAULT_CHECKPOINT_INTERVAL);
+                long moves = 0;
+                while (game.getStatus() == GameStatus.IN_PROGRESS && player.playMove(game)) {
+                    moves++;
+                }
+                try {
+                    journal.append(game);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                stats.add(game.getStatus(), highestTile(game), moves);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Play all the configured games
+     * @return the merged totals of every game
+     */
+    public Stats run() throws IOException {
+        // the split depends on the game count only, so the same seed gives
+        // the same games whatever the thread count
+        int threshold = Math.max(1, games / LEAF_COUNT);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        if (journalPath != null) {
+            journal = new MoveJournal(journalPath);
+        }
+        try {
+            return pool.invoke(new GameBatch(games, new SplittableRandom(seed), threshold));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * @param name arraylist, bitboard or sparse
+     * @param random the tile generator of the new engine
+     * @return a new engine, not yet sized
+     * @throws IllegalArgumentException when the name is unknown
+     */
+    public static NumberSlider createEngine(String name, RandomGenerator random) {
+        switch (name) {
+            case "arraylist":
+                return new NumberGameArrayList(random);
+            case "bitboard":
+                return new NumberGameBitBoard(random);
+            case "sparse":
+                return new NumberGameSparse(random);
+            default:
+                throw new IllegalArgumentException("Unknown engine " + name);
+        }
+    }
+
+    /**
+     * @param name random, corner, expectimax or montecarlo
+     * @param height the number of rows of the games to play
+     * @param width the number of columns of the games to play
+     * @param random the generator used by randomized policies
+     * @return a new policy
+     * @throws IllegalArgumentException when the name is unknown or the
+     *  policy can't play that size
+     */
+    public static MovePolicy createPolicy(String name, int height, int width, RandomGenerator random) {
+        final SlideDirection[] dirs = SlideDirection.values();
+        switch (name) {
+            case "random":
+                return game -> {
+                    int first = random.nextInt(dirs.length);
+                    for (int k = 0; k < dirs.length; k++) {
+                        if (game.slide(dirs[(first + k) % dirs.length])) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            case "corner":
+                /* keep the big tiles in the lower left corner */
+                return game -> game.slide(SlideDirection.DOWN) || game.slide(SlideDirection.LEFT)
+                        || game.slide(SlideDirection.RIGHT) || game.slide(SlideDirection.UP);
+            case "expectimax":
+                if (height != 4 || width != 4) {
+                    throw new IllegalArgumentException("The expectimax policy only plays 4x4 boards");
+                }
+                return new ExpectimaxPlayer();
+            case "montecarlo":
+                return new MonteCarloPlayer(height, width, random.nextLong());
+            default:
+                throw new IllegalArgumentException("Unknown policy " + name);
+        }
+    }
+
+    /**
+     * @return the highest tile on the board of any game
+     */
+    static int highestTile(PlayableGame game) {
+        int highest = 0;
+        for (Cell c : game.getNonEmptyTiles()) {
+            highest = Math.max(highest, c.getValue());
+        }
+        return highest;
+    }
+
+    void parse(String[] arg) {
+        for (int k = 0; k + 1 < arg.length; k += 2) {
+            String value = arg[k + 1];
+            switch (arg[k]) {
+                case "--games":
+                    games = Integer.parseInt(value);
+                    break;
+                case "--size":
+                    String[] dims = value.split("x");
+                    height = Integer.parseInt(dims[0]);
+                    width = Integer.parseInt(dims[dims.length - 1]);
+                    break;
+                case "--goal":
+                    goal = Integer.parseInt(value);
+                    break;
+                case "--engine":
+                    engine = value;
+                    break;
+                case "--policy":
+                    policy = value;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--journal":
+                    journalPath = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg[k]);
+            }
+        }
+        if (arg.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for " + arg[arg.length - 1]);
+        }
+        if (games <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("games and threads must be positive");
+        }
+        if (journalPath != null && !engine.equals("arraylist")) {
+            throw new IllegalArgumentException("Only the arraylist engine can be journaled");
+        }
+        /* fail before starting the pool when the names or sizes are wrong */
+        createEngine(engine, new SplittableRandom()).resizeBoard(height, width, goal);
+        createPolicy(policy, height, width, new SplittableRandom());
+    }
+
+    private void report(Stats stats, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%d games of %dx%d to %d, engine %s, policy %s, %d threads, seed %d%n",
+                stats.getGames(), height, width, goal, engine, policy, threads, seed);
+        System.out.printf("%.3f s, %.1f games/s, %.1f moves/s, %.1f moves/game%n",
+                seconds, stats.getGames() / seconds, stats.getMoves() / seconds,
+                (double) stats.getMoves() / stats.getGames());
+        System.out.println("Final status:");
+        for (GameStatus status : GameStatus.values()) {
+            long n = stats.getStatusCount(status);
+            System.out.printf("  %-12s %10d %6.2f%%%n", status, n, 100.0 * n / stats.getGames());
+        }
+        System.out.println("Highest tile:");
+        for (int c = 1; c < stats.highestCounts.length; c++) {
+            long n = stats.highestCounts[c];
+            if (n > 0) {
+                System.out.printf("  %-12d %10d %6.2f%%%n", 1L << (c - 1), n, 100.0 * n / stats.getGames());
+            }
+        }
+    }
+
+    public static void main(String[] arg) throws IOException {
+        SimulationRunner runner = new SimulationRunner();
+        try {
+            runner.parse(arg);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() == null ? "Invalid board size or goal" : e.getMessage());
+            System.err.println("Usage: SimulationRunner [--games N] [--size ROWSxCOLS] [--goal G]"
+                    + " [--engine arraylist|bitboard|sparse] [--policy random|corner|expectimax|montecarlo]"
+                    + " [--threads T] [--seed S] [--journal FILE]");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        Stats stats = runner.run();
+        runner.report(stats, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,51 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SimulationRunnerTester {
+    @Test(timeout = 30000)
+    public void sameSeedShallGiveSameStatsOnAnyThreadCount() throws IOException
+    {
+        SimulationRunner.Stats one = run(1, "arraylist");
+        for (int threads : new int[] {2, 3, 8}) {
+            SimulationRunner.Stats many = run(threads, "arraylist");
+            assertEquals(one.getGames(), many.getGames());
+            assertEquals(one.getMoves(), many.getMoves());
+            for (GameStatus status : GameStatus.values())
+                assertEquals(status.toString(), one.getStatusCount(status), many.getStatusCount(status));
+            for (int tile = 1; tile <= 1 << 16; tile <<= 1)
+                assertEquals("tile " + tile, one.getHighestCount(tile), many.getHighestCount(tile));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void totalsShallAddUpToGames() throws IOException
+    {
+        for (String engine : new String[] {"arraylist", "bitboard", "sparse"}) {
+            SimulationRunner.Stats stats = run(2, engine);
+            assertEquals(300, stats.getGames());
+            long statuses = 0;
+            for (GameStatus status : GameStatus.values())
+                statuses += stats.getStatusCount(status);
+            assertEquals(300, statuses);
+            long tiles = stats.getHighestCount(0);
+            for (int tile = 1; tile != 0; tile <<= 1)
+                tiles += stats.getHighestCount(tile);
+            assertEquals(300, tiles);
+            assertEquals(0, stats.getHighestCount(0));
+            assertTrue(stats.getMoves() > 300);
+        }
+    }
+
+    private static SimulationRunner.Stats run(int threads, String engine) throws IOException
+    {
+        SimulationRunner runner = new SimulationRunner();
+        runner.parse(new String[] {"--games", "300", "--size", "4x4", "--goal", "2048", "--engine", engine,
+                "--policy", "random", "--threads", String.valueOf(threads), "--seed", "42"});
+        return runner.run();
+    }
+}
@@ -0,0 +1,62 @@
+package Project2;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The SplitMix64 generator of SplittableRandom, with a state that can be
+ * read and written back. A seeded instance gives exactly the numbers of a
+ * SplittableRandom built with the same seed, and a saved game can carry
+ * its generator to continue with the same tiles.
+ *
+ * Like SplittableRandom it is not thread-safe.
+ */
+public class SplitMixRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    /**
+     * Create a generator with an unpredictable seed
+     */
+    public SplitMixRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param seed the seed, as given to SplittableRandom
+     */
+    public SplitMixRandom(long seed) {
+        state = seed;
+    }
+
+    /**
+     * @return the whole state of the generator
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * @param state a state returned by getState(), the generator then
+     *              repeats the numbers that followed it
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = state += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public int nextInt() {
+        long z = state += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+}
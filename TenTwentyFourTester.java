@@ -5,6 +5,11 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -593,6 +598,236 @@ public class TenTwentyFourTester {
         assertEquals(GameStatus.USER_WON, gameLogic.getStatus());
     }
 
+    @Test(timeout = 5000)
+    public void sameSeedShallReplaySameGame()
+    {
+        long seed = gen.nextLong();
+        NumberGameArrayList one = new NumberGameArrayList(seed);
+        NumberGameArrayList two = new NumberGameArrayList(new SplittableRandom(seed));
+        one.resizeBoard(NROWS, NCOLS, GAME_GOAL);
+        two.resizeBoard(NROWS, NCOLS, GAME_GOAL);
+        one.reset();
+        two.reset();
+        for (int count = 0; count < 200 && one.getStatus() == GameStatus.IN_PROGRESS; count++) {
+            SlideDirection dir = SlideDirection.values()[gen.nextInt(4)];
+            assertEquals(one.slide(dir), two.slide(dir));
+            List<Cell> a = one.getNonEmptyTiles();
+            List<Cell> b = two.getNonEmptyTiles();
+            assertEquals(a.size(), b.size());
+            for (int k = 0; k < a.size(); k++)
+                assertEquals(0, a.get(k).compareTo(b.get(k)));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void undoShallForgetMovesBeyondDepth()
+    {
+        final int DEPTH = 3;
+        NumberGameArrayList game = new NumberGameArrayList();
+        game.setUndoDepth(DEPTH);
+        game.resizeBoard(NROWS, NCOLS, GAME_GOAL);
+        int[][] mat = new int[NROWS][NCOLS];
+        mat[0][0] = 2;
+        game.setValues(mat);
+        int moves = 0;
+        for (int count = 0; count < 10; count++) {
+            /* only moves that change the board are kept for undo */
+            if (game.slide(count % 2 == 0 ? SlideDirection.DOWN : SlideDirection.UP))
+                moves++;
+        }
+        assertEquals(moves, game.getMoveCount());
+        assertEquals(Math.min(DEPTH, moves), game.getUndoSize());
+        for (int k = 0; k < Math.min(DEPTH, moves); k++)
+            game.undo();
+        assertEquals(moves - Math.min(DEPTH, moves), game.getMoveCount());
+        try {
+            game.undo();
+            fail("undo() beyond the undo depth should fail");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void slideShallNotAllocateOnLargeBoards()
+    {
+        final int N = 64;
+        NumberGameArrayList game = new NumberGameArrayList();
+        game.resizeBoard(N, N, GAME_GOAL);
+        int[][] mat = new int[N][N];
+        for (int k = 0; k < N; k++)
+            mat[k][N - 1] = 2;
+        game.setValues(mat);
+
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        /* warm up so the slide path is compiled and the undo buffer has grown */
+        for (int count = 0; count < 20000; count++)
+            slideAndUndo(game);
+
+        final int MOVES = 10000;
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int count = 0; count < MOVES; count++)
+            slideAndUndo(game);
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("slide() allocated " + allocated + " bytes over " + MOVES + " moves",
+                allocated < MOVES);
+    }
+
+    private void slideAndUndo(NumberGameArrayList game)
+    {
+        assertTrue(game.slide(SlideDirection.LEFT));
+        assertTrue(game.slide(SlideDirection.RIGHT));
+        game.undo();
+        game.undo();
+    }
+
+    @Test(timeout = 5000)
+    public void tileVisitorAndCopyShallMatchNonEmptyTiles()
+    {
+        assertEquals(NROWS, gameLogic.getHeight());
+        assertEquals(NCOLS, gameLogic.getWidth());
+        int[][] vals = new int[NROWS][NCOLS];
+        int[] buffer = new int[NROWS * NCOLS + 3];
+        for (int count = 0; count < REPEAT_COUNT; count++) {
+            for (int k = 0; k < NROWS; k++)
+                for (int m = 0; m < NCOLS; m++)
+                    vals[k][m] = gen.nextBoolean() ? 0 : nextTileValue();
+            gameLogic.setValues(vals);
+
+            List<Cell> visited = new ArrayList<>();
+            gameLogic.forEachTile((row, column, value) -> visited.add(new Cell(row, column, value)));
+            List<Cell> listed = gameLogic.getNonEmptyTiles();
+            assertEquals(listed.size(), visited.size());
+            for (int k = 0; k < listed.size(); k++)
+                assertEquals(0, listed.get(k).compareTo(visited.get(k)));
+
+            gameLogic.copyValues(buffer);
+            for (int k = 0; k < NROWS; k++)
+                for (int m = 0; m < NCOLS; m++)
+                    assertEquals(vals[k][m], buffer[k * NCOLS + m]);
+        }
+        try {
+            gameLogic.copyValues(new int[NROWS * NCOLS - 1]);
+            fail("copyValues() should refuse a short buffer");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void moveResultShallRebuildBoardAfterSlide()
+    {
+        MoveResult result = new MoveResult();
+        int[] before = new int[NROWS * NCOLS];
+        int[] after = new int[NROWS * NCOLS];
+        int[][] vals = new int[NROWS][NCOLS];
+        for (int count = 0; count < REPEAT_COUNT; count++) {
+            for (int k = 0; k < NROWS; k++)
+                for (int m = 0; m < NCOLS; m++)
+                    vals[k][m] = gen.nextInt(3) == 0 ? 0 : nextTileValue();
+            gameLogic.setValues(vals);
+            gameLogic.copyValues(before);
+            SlideDirection dir = SlideDirection.values()[gen.nextInt(4)];
+            boolean moved = gameLogic.slide(dir, result);
+            assertEquals(moved, result.isMoved());
+            gameLogic.copyValues(after);
+            if (!moved) {
+                assertEquals(0, result.getTileCount());
+                assertArrayEquals(before, after);
+                continue;
+            }
+
+            /* replay the listed tiles and the spawned one on the old board */
+            int score = 0;
+            for (int t = 0; t < result.getTileCount(); t++)
+                before[result.getFromRow(t) * NCOLS + result.getFromColumn(t)] = 0;
+            for (int t = 0; t < result.getTileCount(); t++) {
+                int value = result.getValue(t);
+                if (result.isMerged(t))
+                    score += value;
+                before[result.getToRow(t) * NCOLS + result.getToColumn(t)] = result.isMerged(t) ? value * 2 : value;
+            }
+            Cell spawned = result.getSpawned();
+            assertEquals(0, before[spawned.getRow() * NCOLS + spawned.getColumn()]);
+            before[spawned.getRow() * NCOLS + spawned.getColumn()] = spawned.getValue();
+            assertArrayEquals(after, before);
+            assertEquals(score, result.getScore());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void savedGameShallContinueIdentically() throws IOException
+    {
+        long seed = gen.nextLong();
+        NumberGameArrayList game = new NumberGameArrayList(seed);
+        game.setUndoDepth(5);
+        game.resizeBoard(NROWS, NCOLS, GAME_GOAL);
+        game.reset();
+        for (int count = 0; count < 40 && game.getStatus() == GameStatus.IN_PROGRESS; count++)
+            game.slide(SlideDirection.values()[gen.nextInt(4)]);
+
+        Path file = Files.createTempFile("game", ".bin");
+        try {
+            game.save(file);
+            assertEquals(game.getSaveSize(), Files.size(file));
+            NumberGameArrayList copy = NumberGameArrayList.load(file);
+            assertEquals(game.getWinningValue(), copy.getWinningValue());
+            assertEquals(game.getMoveCount(), copy.getMoveCount());
+            assertEquals(game.getUndoSize(), copy.getUndoSize());
+            assertEquals(game.getUndoDepth(), copy.getUndoDepth());
+            assertBoardsEqual(game, copy);
+            /* the same generator state places the same tiles */
+            for (int count = 0; count < 40 && game.getStatus() == GameStatus.IN_PROGRESS; count++) {
+                SlideDirection dir = SlideDirection.values()[gen.nextInt(4)];
+                assertEquals(game.slide(dir), copy.slide(dir));
+                assertBoardsEqual(game, copy);
+            }
+            while (game.getUndoSize() > 0) {
+                game.undo();
+                copy.undo();
+                assertBoardsEqual(game, copy);
+            }
+            assertEquals(0, copy.getUndoSize());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void restoreShallRefuseBrokenSaves()
+    {
+        gameLogic.reset();
+        NumberGameArrayList game = (NumberGameArrayList) gameLogic;
+        ByteBuffer buffer = ByteBuffer.allocate(game.getSaveSize());
+        game.save(buffer);
+        NumberGameArrayList other = new NumberGameArrayList();
+        other.resizeBoard(3, 3, GAME_GOAL);
+        for (int length : new int[] {0, 7, 40, buffer.capacity() - 1}) {
+            ByteBuffer part = ByteBuffer.wrap(buffer.array(), 0, length);
+            try {
+                other.restore(part);
+                fail("restore() should refuse " + length + " of " + buffer.capacity() + " bytes");
+            } catch (IllegalArgumentException expected) {
+            }
+            assertEquals(3, other.getHeight());
+        }
+        buffer.flip();
+        other.restore(buffer);
+        assertBoardsEqual(game, other);
+    }
+
+    private static void assertBoardsEqual(NumberSlider a, NumberSlider b)
+    {
+        assertEquals(a.getHeight(), b.getHeight());
+        assertEquals(a.getWidth(), b.getWidth());
+        int[] one = new int[a.getHeight() * a.getWidth()];
+        int[] two = new int[one.length];
+        a.copyValues(one);
+        b.copyValues(two);
+        assertArrayEquals(one, two);
+        assertEquals(a.getStatus(), b.getStatus());
+    }
+
     /* use DOT (.) for empty cells, be sure to limit the letters to a-f
      * because the highest power of two use in the test is 32 */
 
@@ -1,17 +1,47 @@
 package Project2;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
+/**
+ * Plays the game on the console, either interactively or from a move
+ * script.
+ *
+ * Usage: TextUI [--ansi] [--script FILE|-] [--seed S] [--goal G]
+ */
 public class TextUI {
     private NumberSlider game;
-    private int[][] grid;
     private static int CELL_WIDTH = 3;
-    private static String NUM_FORMAT, BLANK_FORMAT;
+    private final ConsoleRenderer renderer;
     private Scanner inp;
     private Scanner scnr;
 
     public TextUI() {
-        game = new NumberGameArrayList();
+        this(false);
+    }
+
+    /**
+     * @param ansi true to redraw only the cells that changed, with ANSI
+     *             cursor moves, instead of printing every frame in full
+     */
+    public TextUI(boolean ansi) {
+        this(new NumberGameArrayList(), ansi, 64);
+    }
+
+    /**
+     * @param game the engine to play on, resized to a 4x4 board
+     * @param ansi true to redraw only the cells that changed
+     * @param goal the winning value
+     */
+    public TextUI(NumberSlider game, boolean ansi, int goal) {
+        this.game = game;
 
         if (game == null) {
             System.err.println ("*---------------------------------------------*");
@@ -20,39 +50,16 @@ public class TextUI {
             System.err.println ("*---------------------------------------------*");
             System.exit(0xE0);
         }
-        game.resizeBoard(4, 4, 64);
-        grid = new int[4][4];
+        game.resizeBoard(4, 4, goal);
 
-        /* Set the string to %4d */
-        NUM_FORMAT = String.format("%%%dd", CELL_WIDTH + 1);
-
-        /* Set the string to %4s, but without using String.format() */
-        BLANK_FORMAT = "%" + (CELL_WIDTH + 1) + "s";
+        /* Every cell takes CELL_WIDTH + 1 characters, as with %4d */
+        renderer = new ConsoleRenderer(new OutputStreamWriter(System.out), ansi, CELL_WIDTH + 1);
         inp = new Scanner(System.in);
     }
 
     private void renderBoard() {
-        /* reset all the 2D array elements to ZERO */
-        for (int k = 0; k < grid.length; k++)
-            for (int m = 0; m < grid[k].length; m++)
-                grid[k][m] = 0;
-
-        // =========================================================================
-        // TODO
-        /* fill in the 2D array using information for non-empty tiles */
-        // =========================================================================
-        for(Cell cell : game.getNonEmptyTiles()){
-            grid[cell.getRow()][cell.getColumn()] = cell.getValue();
-        }
-        /* Print the 2D array using dots and numbers */
-        for (int k = 0; k < grid.length; k++) {
-            for (int m = 0; m < grid[k].length; m++)
-                if (grid[k][m] == 0)
-                    System.out.printf (BLANK_FORMAT, ".");
-                else
-                    System.out.printf (NUM_FORMAT, grid[k][m]);
-            System.out.println();
-        }
+        /* The whole frame is formatted first and printed at once */
+        renderer.render(game);
     }
 
     /**
@@ -80,6 +87,7 @@ public class TextUI {
         System.out.print ("Slide direction (W, S, D, A), " +
                 "[U]ndo or [Q]uit? ");
         String userInput = scnr.next();
+        boolean undoRefused = false;
         while(!(userInput.equals("Q"))) {
            
             switch (userInput) {
@@ -99,11 +107,16 @@ public class TextUI {
                 try{
                     game.undo();}
                     catch (Exception e){
-                        System.out.println("Cant Undo Beyond First Move");
+                        undoRefused = true;
                     }
                     break;
             }
             renderBoard();
+            /* Printed below the board, which an ANSI frame would clear */
+            if (undoRefused) {
+                System.out.println("Cant Undo Beyond First Move");
+                undoRefused = false;
+            }
             /* Almost done.... */
             switch (game.getStatus()) {
                 case IN_PROGRESS:
@@ -125,9 +138,128 @@ public class TextUI {
         }
     }
 
-    public static void main(String[] arg) {
-        TextUI t = new TextUI();
-        t.playLoop();
+    /**
+     * Play a move script without rendering the moves, then print the final
+     * board, the status and the timing. The script is read through a
+     * buffer in blocks; W, S, A and D slide up, down, left and right, U
+     * undoes a move and Q stops, in either case. Blanks are skipped.
+     * Playing stops at the end of the game like the interactive loop.
+     *
+     * @param script the moves to play
+     * @return the number of characters of the script that were played,
+     *  up to the Q or the move that ended the game
+     * @throws IOException when the script can't be read
+     * @throws IllegalArgumentException when the script holds another
+     *  character
+     */
+    public long playScript(Reader script) throws IOException {
+        game.placeRandomValue();
+        game.placeRandomValue();
+        long start = System.nanoTime();
+        long played = 0;
+        long moves = 0;
+        long refused = 0;
+        char[] buffer = new char[8192];
+        boolean over = false;
+        int n;
+        while (!over && (n = script.read(buffer)) > 0) {
+            int k;
+            for (k = 0; k < n && !over; k++) {
+                char c = buffer[k];
+                switch (Character.toUpperCase(c)) {
+                    case 'W':
+                        moves += game.slide(SlideDirection.UP) ? 1 : 0;
+                        break;
+                    case 'S':
+                        moves += game.slide(SlideDirection.DOWN) ? 1 : 0;
+                        break;
+                    case 'A':
+                        moves += game.slide(SlideDirection.LEFT) ? 1 : 0;
+                        break;
+                    case 'D':
+                        moves += game.slide(SlideDirection.RIGHT) ? 1 : 0;
+                        break;
+                    case 'U':
+                        try {
+                            game.undo();
+                        } catch (IllegalStateException e) {
+                            refused++;
+                        }
+                        break;
+                    case 'Q':
+                        over = true;
+                        break;
+                    default:
+                        if (!Character.isWhitespace(c)) {
+                            throw new IllegalArgumentException("Unknown move '" + c + "' at " + (played + k));
+                        }
+                        continue;
+                }
+                if (game.getStatus() != GameStatus.IN_PROGRESS) {
+                    over = true;
+                }
+            }
+            played += k;
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        renderBoard();
+        System.out.println("Status: " + game.getStatus());
+        System.out.printf("%d moves, %d refused undos, %d on the board, %.1f ms%n",
+                moves, refused, game.getMoveCount(), millis);
+        return played;
+    }
+
+    public static void main(String[] arg) throws IOException {
+        boolean ansi = false;
+        String script = null;
+        Long seed = null;
+        int goal = 64;
+        try {
+            for (int k = 0; k < arg.length; k++) {
+                if (arg[k].equals("--ansi")) {
+                    ansi = true;
+                    continue;
+                }
+                if (k + 1 == arg.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg[k]);
+                }
+                String value = arg[++k];
+                switch (arg[k - 1]) {
+                    case "--script":
+                        script = value;
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--goal":
+                        goal = Integer.parseInt(value);
+                        if (goal <= 1 || (goal & goal - 1) != 0) {
+                            throw new IllegalArgumentException("The goal must be a power of two");
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg[k - 1]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: TextUI [--ansi] [--script FILE|-] [--seed S] [--goal G]");
+            System.exit(1);
+        }
+        NumberSlider game = seed == null ? new NumberGameArrayList() : new NumberGameArrayList(seed);
+        TextUI t = new TextUI(game, ansi, goal);
+        if (script == null) {
+            t.playLoop();
+            return;
+        }
+        try (Reader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            t.playScript(in);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
     }
 }
 
@@ -0,0 +1,88 @@
+package Project2;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TextUITester {
+    private final static long SEED = 5;
+
+    @Test(timeout = 5000)
+    public void scriptShallPlayLikeTheEngine() throws IOException
+    {
+        NumberGameArrayList game = new NumberGameArrayList(SEED);
+        TextUI ui = new TextUI(game, false, 2048);
+        String script = "wA s\nD uu Dq WWWW";
+        assertEquals(script.indexOf('q') + 1, ui.playScript(new StringReader(script)));
+
+        NumberGameArrayList reference = start();
+        reference.slide(SlideDirection.UP);
+        reference.slide(SlideDirection.LEFT);
+        reference.slide(SlideDirection.DOWN);
+        reference.slide(SlideDirection.RIGHT);
+        reference.undo();
+        reference.undo();
+        reference.slide(SlideDirection.RIGHT);
+        assertEquals(reference.getMoveCount(), game.getMoveCount());
+        assertArrayEquals(values(reference), values(game));
+    }
+
+    @Test(timeout = 5000)
+    public void scriptShallRunToEndOfInput() throws IOException
+    {
+        NumberGameArrayList game = new NumberGameArrayList(SEED);
+        TextUI ui = new TextUI(game, false, 2048);
+        /* longer than one read block, undo on the first board is refused */
+        char[] blanks = new char[10000];
+        Arrays.fill(blanks, ' ');
+        String script = "u" + new String(blanks) + "a\n";
+        assertEquals(script.length(), ui.playScript(new StringReader(script)));
+
+        NumberGameArrayList reference = start();
+        reference.slide(SlideDirection.LEFT);
+        assertEquals(reference.getMoveCount(), game.getMoveCount());
+        assertArrayEquals(values(reference), values(game));
+    }
+
+    @Test(timeout = 5000)
+    public void scriptShallRefuseUnknownMoves() throws IOException
+    {
+        NumberGameArrayList game = new NumberGameArrayList(SEED);
+        TextUI ui = new TextUI(game, false, 2048);
+        try {
+            ui.playScript(new StringReader("w s x d"));
+            fail("playScript() should refuse the x");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("'x' at 4"));
+        }
+
+        /* the moves before the bad one were played */
+        NumberGameArrayList reference = start();
+        reference.slide(SlideDirection.UP);
+        reference.slide(SlideDirection.DOWN);
+        assertArrayEquals(values(reference), values(game));
+    }
+
+    /**
+     * @return a game in the state playScript() starts from
+     */
+    private static NumberGameArrayList start()
+    {
+        NumberGameArrayList game = new NumberGameArrayList(SEED);
+        game.resizeBoard(4, 4, 2048);
+        game.placeRandomValue();
+        game.placeRandomValue();
+        return game;
+    }
+
+    private static int[] values(NumberSlider game)
+    {
+        int[] cells = new int[game.getHeight() * game.getWidth()];
+        game.copyValues(cells);
+        return cells;
+    }
+}
@@ -0,0 +1,14 @@
+package Project2;
+
+/**
+ * Receives the tiles of a board one at a time, so the board can be read
+ * without building a list of Cells.
+ */
+public interface TileVisitor {
+    /**
+     * @param row the row of the tile
+     * @param column the column of the tile
+     * @param value the value of the tile, never zero
+     */
+    public void visitTile(int row, int column, int value);
+}